@@ -0,0 +1,122 @@
+package com.example.codingpractice;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times creating, binding and laying out the first screen of note cards on the UI thread,
+ * once with cards inflated on the spot and once with cards pre-inflated by NoteViewPool.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NoteItemInflationTest {
+    private static final String TAG = "NoteItemInflationTest";
+    private static final int FIRST_SCREEN_CARDS = 12;
+    private static final int RUNS = 15;
+    private static final long PRE_INFLATE_TIMEOUT_MILLIS = 10_000;
+
+    private final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+    private final Context context = new ContextThemeWrapper(instrumentation.getTargetContext(),
+            R.style.Theme_CodingPractice);
+
+    @Test
+    public void firstScreenWithAndWithoutPreInflation() {
+        List<Note> notes = new ArrayList<>();
+        for (int i = 0; i < FIRST_SCREEN_CARDS; i++) {
+            Note note = new Note("Title " + i, "Description of note " + i, 1 + i % 10);
+            note.setId(i + 1);
+            notes.add(note);
+        }
+
+        long[] inflatedNanos = new long[RUNS];
+        long[] pooledNanos = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            RecyclerView recyclerView = newRecyclerView();
+
+            NoteViewPool emptyPool = onMainThread(() -> new NoteViewPool(context));
+            inflatedNanos[run] = timeFirstScreen(recyclerView, emptyPool, notes);
+
+            NoteViewPool filledPool = onMainThread(() -> new NoteViewPool(context));
+            instrumentation.runOnMainSync(() -> filledPool.preInflate(recyclerView, FIRST_SCREEN_CARDS));
+            waitForPreInflation(filledPool);
+            pooledNanos[run] = timeFirstScreen(recyclerView, filledPool, notes);
+        }
+
+        long inflated = median(inflatedNanos);
+        long pooled = median(pooledNanos);
+        Log.i(TAG, String.format("first screen of %d cards on the UI thread: inflated %.2f ms, "
+                        + "pre-inflated %.2f ms (median of %d runs)",
+                FIRST_SCREEN_CARDS, inflated / 1e6, pooled / 1e6, RUNS));
+        assertTrue("pre-inflated cards should be faster", pooled < inflated);
+    }
+
+    private RecyclerView newRecyclerView() {
+        return onMainThread(() -> {
+            RecyclerView recyclerView = new RecyclerView(context);
+            recyclerView.setLayoutManager(new LinearLayoutManager(context));
+            return recyclerView;
+        });
+    }
+
+    //what the UI thread does for the first screen: create, bind, measure and lay out every card
+    private long timeFirstScreen(RecyclerView recyclerView, NoteViewPool pool, List<Note> notes) {
+        return onMainThread(() -> {
+            NoteAdapter adapter = new NoteAdapter(pool);
+            adapter.submitList(notes);//the first list is applied right away
+            int width = context.getResources().getDisplayMetrics().widthPixels;
+            int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY);
+            int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+
+            long start = System.nanoTime();
+            for (int position = 0; position < notes.size(); position++) {
+                NoteAdapter.NoteViewHolder holder = adapter.createViewHolder(recyclerView, 0);
+                adapter.bindViewHolder(holder, position);
+                holder.itemView.measure(widthSpec, heightSpec);
+                holder.itemView.layout(0, 0, holder.itemView.getMeasuredWidth(),
+                        holder.itemView.getMeasuredHeight());
+            }
+            return System.nanoTime() - start;
+        });
+    }
+
+    private void waitForPreInflation(NoteViewPool pool) {
+        long deadline = SystemClock.uptimeMillis() + PRE_INFLATE_TIMEOUT_MILLIS;
+        while (onMainThread(pool::getPooledCount) < FIRST_SCREEN_CARDS) {
+            assertTrue("cards were not pre-inflated in time", SystemClock.uptimeMillis() < deadline);
+            SystemClock.sleep(10);
+        }
+    }
+
+    private <T> T onMainThread(Action<T> action) {
+        List<T> result = new ArrayList<>();
+        instrumentation.runOnMainSync(() -> result.add(action.run()));
+        return result.get(0);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private interface Action<T> {
+        T run();
+    }
+}
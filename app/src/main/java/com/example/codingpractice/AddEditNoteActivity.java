@@ -52,6 +52,9 @@ public class AddEditNoteActivity extends AppCompatActivity {
         }else{
             setTitle("Add Note");
         }
+
+        //highlights markdown while typing, only the edited part is parsed again on each key
+        editTextDescription.addTextChangedListener(new MarkdownTextWatcher(editTextDescription.getText()));
     }
 
     private void saveNote(){
@@ -0,0 +1,45 @@
+package com.example.codingpractice;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads that all database work runs on. The database is in WAL mode, which lets readers
+ * keep reading the last committed data while a write is going on, so reads (the notes list,
+ * tag filters) get their own pool and never wait for a write like deleteAll() to finish.
+ * Writes all go through one thread: SQLite only allows one writer at a time anyway, and
+ * running them in order keeps the same ordering AsyncTask's serial executor gave us before.
+ */
+public final class DatabaseExecutors {
+    //Android opens up to 4 reader connections for a WAL database by default,
+    //more reader threads than that would only wait for a connection
+    public static final int READER_COUNT = 4;
+
+    private static final ExecutorService readExecutor =
+            Executors.newFixedThreadPool(READER_COUNT, threadFactory("note-db-read"));
+    private static final ExecutorService writeExecutor =
+            Executors.newSingleThreadExecutor(threadFactory("note-db-write"));
+
+    private DatabaseExecutors() {
+    }
+
+    public static Executor read() {
+        return readExecutor;
+    }
+
+    public static Executor write() {
+        return writeExecutor;
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);//don't keep the process alive just for these threads
+            return thread;
+        };
+    }
+}
@@ -89,7 +89,11 @@ public class MainActivity extends AppCompatActivity {
         RecyclerView notesRecyclerView = findViewById(R.id.recycler_view);
         notesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
 
-        NoteAdapter noteAdapter = new NoteAdapter();
+        //note cards are inflated in the background while the notes are still loading
+        NoteViewPool noteViewPool = new NoteViewPool(this);
+        noteViewPool.attach(notesRecyclerView);
+
+        NoteAdapter noteAdapter = new NoteAdapter(noteViewPool);
         notesRecyclerView.setAdapter(noteAdapter);
 
 
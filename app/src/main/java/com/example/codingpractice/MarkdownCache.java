@@ -0,0 +1,104 @@
+package com.example.codingpractice;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Rendered markdown of note descriptions, keyed by note id and checked against the content
+ * hash so an edited note is rendered again. Rendering happens on a background thread, the
+ * listeners are called on the main thread once a note is ready.
+ * There is one cache per process, shared by every adapter, so it and its render thread
+ * outlive activity recreation.
+ * Must only be used from the main thread.
+ */
+public class MarkdownCache {
+    private static final int MAX_CACHED_CHARS = 1024 * 1024;
+    private static MarkdownCache instance;
+
+    private final LruCache<Integer, Entry> cache = new LruCache<Integer, Entry>(MAX_CACHED_CHARS) {
+        @Override
+        protected int sizeOf(Integer noteId, Entry entry) {
+            return Math.max(1, entry.source.length());
+        }
+    };
+    private final Map<Integer, String> rendering = new HashMap<>();//note id -> source being rendered
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "markdown-render");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private MarkdownCache() {
+    }
+
+    public static MarkdownCache getInstance() {
+        if (instance == null) {
+            instance = new MarkdownCache();
+        }
+        return instance;
+    }
+
+    public void addListener(Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    //returns the rendered description, or null if it isn't rendered yet
+    public CharSequence get(int noteId, String source) {
+        Entry entry = cache.get(noteId);
+        if (entry != null && entry.hash == source.hashCode() && entry.source.equals(source)) {
+            return entry.rendered;
+        }
+        return null;
+    }
+
+    public void renderInBackground(int noteId, String source) {
+        if (source.equals(rendering.get(noteId))) {
+            return;//already on its way
+        }
+        rendering.put(noteId, source);
+        executor.execute(() -> {
+            CharSequence rendered = MarkdownRenderer.render(MarkdownDocument.parse(source));
+            mainHandler.post(() -> {
+                if (source.equals(rendering.get(noteId))) {
+                    rendering.remove(noteId);
+                }
+                cache.put(noteId, new Entry(source, rendered));
+                for (Listener listener : new ArrayList<>(listeners)) {
+                    listener.onRendered(noteId);
+                }
+            });
+        });
+    }
+
+    public interface Listener {
+        void onRendered(int noteId);
+    }
+
+    private static class Entry {
+        final String source;
+        final int hash;
+        final CharSequence rendered;
+
+        Entry(String source, CharSequence rendered) {
+            this.source = source;
+            this.hash = source.hashCode();
+            this.rendered = rendered;
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.example.codingpractice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parsed markdown of a note description. Supports headings, bullet lists, quotes, fenced
+ * code blocks and inline bold, italic, strikethrough and code.
+ * The text is split into blocks (a heading, a paragraph or a code block, together with the
+ * blank lines after it) and each block is parsed on its own, so after an edit only the
+ * blocks around the edit are parsed again, see edit().
+ * Plain Java on purpose, MarkdownRenderer turns the result into Android spans.
+ */
+public class MarkdownDocument {
+    //span types
+    public static final int HEADING = 0;
+    public static final int BOLD = 1;
+    public static final int ITALIC = 2;
+    public static final int STRIKETHROUGH = 3;
+    public static final int CODE = 4;
+    public static final int CODE_BLOCK = 5;
+    public static final int BULLET = 6;
+    public static final int QUOTE = 7;
+
+    private static final String FENCE = "```";
+
+    private String source;
+    private final ArrayList<Block> blocks = new ArrayList<>();
+
+    private MarkdownDocument(String source) {
+        this.source = source;
+    }
+
+    public static MarkdownDocument parse(String source) {
+        MarkdownDocument document = new MarkdownDocument(source);
+        int position = 0;
+        do {
+            Block block = document.parseBlock(position);
+            document.blocks.add(block);
+            position = block.end;
+        } while (position < source.length());
+        return document;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getBlockCount() {
+        return blocks.size();
+    }
+
+    //source position of the first character of the block
+    public int getBlockStart(int block) {
+        return blocks.get(block).start;
+    }
+
+    //source position just past the block
+    public int getBlockEnd(int block) {
+        return blocks.get(block).end;
+    }
+
+    /**
+     * Updates the document after count characters replaced before characters at start
+     * (the arguments of TextWatcher.onTextChanged()) and returns which blocks changed.
+     */
+    public Change edit(int start, int before, int count, String newSource) {
+        int oldEnd = start + before;
+        int delta = count - before;
+        source = newSource;
+
+        //an edit can join a line to the block before it, so parsing starts one block earlier
+        int first = 0;
+        while (first < blocks.size() - 1 && blocks.get(first).end <= start) {
+            first++;
+        }
+        first = Math.max(0, first - 1);
+
+        List<Block> parsed = new ArrayList<>();
+        int position = blocks.get(first).start;
+        int next = first + 1;//first old block that may still be reused
+        do {
+            Block block = parseBlock(position);
+            parsed.add(block);
+            position = block.end;
+            //once we are past the edit and land on the start of an old block that the edit
+            //didn't touch, everything from there on parses exactly as before
+            while (next < blocks.size() && blocks.get(next).start + delta < position) {
+                next++;
+            }
+            if (position >= start + count && next < blocks.size()
+                    && blocks.get(next).start >= oldEnd && blocks.get(next).start + delta == position) {
+                break;
+            }
+        } while (position < source.length());
+        if (position >= source.length()) {
+            next = blocks.size();
+        }
+
+        for (int i = next; i < blocks.size(); i++) {
+            blocks.get(i).start += delta;
+            blocks.get(i).end += delta;
+        }
+        int removed = next - first;
+        blocks.subList(first, next).clear();
+        blocks.addAll(first, parsed);
+        return new Change(first, removed, parsed.size());
+    }
+
+    //calls the visitor for the spans and markers of the given blocks, in source positions
+    public void visit(int firstBlock, int blockCount, Visitor visitor) {
+        for (int b = firstBlock; b < firstBlock + blockCount; b++) {
+            Block block = blocks.get(b);
+            for (int i = 0; i < block.spans.length; i += 4) {
+                visitor.span(block.spans[i], block.start + block.spans[i + 1],
+                        block.start + block.spans[i + 2], block.spans[i + 3]);
+            }
+            for (int i = 0; i < block.markers.length; i += 2) {
+                visitor.marker(block.start + block.markers[i], block.start + block.markers[i + 1]);
+            }
+        }
+    }
+
+    //the text to show, with the markdown markers removed and the spans moved to match
+    public Display toDisplay() {
+        StringBuilder text = new StringBuilder(source.length());
+        IntList spans = new IntList();
+        for (Block block : blocks) {
+            int displayStart = text.length();
+            int[] markers = block.markers;
+            int markerCount = markers.length / 2;
+            //removedBefore[i] = marker characters in the block before marker i
+            int[] removedBefore = new int[markerCount + 1];
+            int copyFrom = block.start;
+            for (int m = 0; m < markerCount; m++) {
+                int markerStart = block.start + markers[2 * m];
+                text.append(source, copyFrom, markerStart);
+                copyFrom = block.start + markers[2 * m + 1];
+                removedBefore[m + 1] = removedBefore[m] + markers[2 * m + 1] - markers[2 * m];
+            }
+            text.append(source, copyFrom, block.end);
+
+            for (int i = 0; i < block.spans.length; i += 4) {
+                spans.add(block.spans[i]);
+                spans.add(displayStart + toDisplayOffset(markers, removedBefore, block.spans[i + 1]));
+                spans.add(displayStart + toDisplayOffset(markers, removedBefore, block.spans[i + 2]));
+                spans.add(block.spans[i + 3]);
+            }
+        }
+        return new Display(text.toString(), spans.toArray());
+    }
+
+    private static int toDisplayOffset(int[] markers, int[] removedBefore, int offset) {
+        //find the last marker starting before offset
+        int low = 0, high = markers.length / 2 - 1, last = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (markers[2 * middle] < offset) {
+                last = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (last < 0) {
+            return offset;
+        }
+        int removed = removedBefore[last] + Math.min(offset, markers[2 * last + 1]) - markers[2 * last];
+        return offset - removed;
+    }
+
+    //parses the block starting at position, which is the start of a line
+    private Block parseBlock(int position) {
+        Block block = new Block(position);
+        IntList spans = new IntList();
+        IntList markers = new IntList();
+        int line = position;
+
+        //only the first block of the document can start with blank lines
+        while (line < source.length() && isBlank(line, lineEnd(line))) {
+            line = nextLine(line);
+        }
+        if (line < source.length()) {
+            if (source.startsWith(FENCE, line)) {
+                line = parseCodeBlock(block, line, spans, markers);
+            } else if (headingLevel(line) > 0) {
+                parseHeading(block, line, spans, markers);
+                line = nextLine(line);
+            } else {
+                do {
+                    parseParagraphLine(block, line, spans, markers);
+                    line = nextLine(line);
+                } while (line < source.length() && !isBlank(line, lineEnd(line))
+                        && !source.startsWith(FENCE, line) && headingLevel(line) == 0);
+            }
+            //the blank lines after a block belong to it
+            while (line < source.length() && isBlank(line, lineEnd(line))) {
+                line = nextLine(line);
+            }
+        }
+        block.end = line;
+        block.spans = spans.toArray();
+        block.markers = markers.toArray();
+        return block;
+    }
+
+    private int parseCodeBlock(Block block, int line, IntList spans, IntList markers) {
+        addMarker(block, markers, line, nextLine(line));
+        int contentStart = nextLine(line);
+        int closing = contentStart;
+        while (closing < source.length() && !source.startsWith(FENCE, closing)) {
+            closing = nextLine(closing);
+        }
+        addSpan(block, spans, CODE_BLOCK, contentStart, closing, 0);
+        if (closing >= source.length()) {
+            return source.length();//not closed yet, e.g. while it is being typed
+        }
+        addMarker(block, markers, closing, nextLine(closing));
+        return nextLine(closing);
+    }
+
+    private void parseHeading(Block block, int line, IntList spans, IntList markers) {
+        int level = headingLevel(line);
+        int end = lineEnd(line);
+        int contentStart = Math.min(line + level + 1, end);
+        addMarker(block, markers, line, contentStart);
+        addSpan(block, spans, HEADING, contentStart, end, level);
+        parseInline(block, contentStart, end, spans, markers);
+    }
+
+    private void parseParagraphLine(Block block, int line, IntList spans, IntList markers) {
+        int end = lineEnd(line);
+        int contentStart = line;
+        if (end - line >= 2 && source.charAt(line + 1) == ' ') {
+            char c = source.charAt(line);
+            if (c == '-' || c == '*' || c == '+') {
+                contentStart = line + 2;
+                addMarker(block, markers, line, contentStart);
+                addSpan(block, spans, BULLET, contentStart, end, 0);
+            } else if (c == '>') {
+                contentStart = line + 2;
+                addMarker(block, markers, line, contentStart);
+                addSpan(block, spans, QUOTE, contentStart, end, 0);
+            }
+        }
+        parseInline(block, contentStart, end, spans, markers);
+    }
+
+    //inline markup never crosses a line, so a stray * can't restyle the rest of the note
+    private void parseInline(Block block, int start, int end, IntList spans, IntList markers) {
+        int i = start;
+        while (i < end) {
+            char c = source.charAt(i);
+            if (c == '\\' && i + 1 < end && isPunctuation(source.charAt(i + 1))) {
+                addMarker(block, markers, i, i + 1);
+                i += 2;
+            } else if (c == '`') {
+                int close = indexOf("`", i + 1, end);
+                if (close < 0) {
+                    i++;
+                    continue;
+                }
+                addMarker(block, markers, i, i + 1);
+                addSpan(block, spans, CODE, i + 1, close, 0);
+                addMarker(block, markers, close, close + 1);
+                i = close + 1;
+            } else if ((c == '*' || c == '_' || c == '~') && i + 1 < end && source.charAt(i + 1) == c) {
+                String delimiter = source.substring(i, i + 2);
+                int close = indexOf(delimiter, i + 2, end);
+                if (close <= i + 2) {
+                    i += 2;
+                    continue;
+                }
+                addMarker(block, markers, i, i + 2);
+                addSpan(block, spans, c == '~' ? STRIKETHROUGH : BOLD, i + 2, close, 0);
+                parseInline(block, i + 2, close, spans, markers);
+                addMarker(block, markers, close, close + 2);
+                i = close + 2;
+            } else if ((c == '*' || c == '_') && canOpenItalic(i, end)) {
+                int close = findItalicClose(c, i + 1, end);
+                if (close < 0) {
+                    i++;
+                    continue;
+                }
+                addMarker(block, markers, i, i + 1);
+                addSpan(block, spans, ITALIC, i + 1, close, 0);
+                parseInline(block, i + 1, close, spans, markers);
+                addMarker(block, markers, close, close + 1);
+                i = close + 1;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private boolean canOpenItalic(int i, int end) {
+        if (i + 1 >= end || Character.isWhitespace(source.charAt(i + 1))) {
+            return false;
+        }
+        //snake_case_names are not italic
+        return source.charAt(i) == '*' || i == 0 || !Character.isLetterOrDigit(source.charAt(i - 1));
+    }
+
+    private int findItalicClose(char c, int from, int end) {
+        for (int i = from + 1; i < end; i++) {
+            if (source.charAt(i) == c && !Character.isWhitespace(source.charAt(i - 1))
+                    && (c == '*' || i + 1 == end || !Character.isLetterOrDigit(source.charAt(i + 1)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int headingLevel(int line) {
+        int end = lineEnd(line);
+        int level = 0;
+        while (line + level < end && source.charAt(line + level) == '#') {
+            level++;
+        }
+        if (level == 0 || level > 6) {
+            return 0;
+        }
+        return line + level == end || source.charAt(line + level) == ' ' ? level : 0;
+    }
+
+    //like String.indexOf() but stops at end, so a missing closing marker doesn't scan the whole note
+    private int indexOf(String text, int from, int end) {
+        for (int i = from; i + text.length() <= end; i++) {
+            if (source.startsWith(text, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lineEnd(int line) {
+        int newline = source.indexOf('\n', line);
+        return newline < 0 ? source.length() : newline;
+    }
+
+    private int nextLine(int line) {
+        int newline = source.indexOf('\n', line);
+        return newline < 0 ? source.length() : newline + 1;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(source.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPunctuation(char c) {
+        return c < 128 && !Character.isLetterOrDigit(c) && !Character.isWhitespace(c);
+    }
+
+    //spans and markers are stored relative to the block start, so blocks after an edit
+    //only need their start moved
+    private static void addSpan(Block block, IntList spans, int type, int start, int end, int level) {
+        spans.add(type);
+        spans.add(start - block.start);
+        spans.add(end - block.start);
+        spans.add(level);
+    }
+
+    private static void addMarker(Block block, IntList markers, int start, int end) {
+        markers.add(start - block.start);
+        markers.add(end - block.start);
+    }
+
+    private static class Block {
+        int start;
+        int end;
+        int[] spans;//type, start, end, level
+        int[] markers;//start, end of the characters that are only markup, in order
+
+        Block(int start) {
+            this.start = start;
+        }
+    }
+
+    private static class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    public interface Visitor {
+        void span(int type, int start, int end, int level);
+
+        void marker(int start, int end);
+    }
+
+    //blocks [firstBlock, firstBlock + addedBlockCount) replaced removedBlockCount old blocks
+    public static class Change {
+        public final int firstBlock;
+        public final int removedBlockCount;
+        public final int addedBlockCount;
+
+        Change(int firstBlock, int removedBlockCount, int addedBlockCount) {
+            this.firstBlock = firstBlock;
+            this.removedBlockCount = removedBlockCount;
+            this.addedBlockCount = addedBlockCount;
+        }
+    }
+
+    public static class Display {
+        public final String text;
+        public final int[] spans;//type, start, end, level
+
+        Display(String text, int[] spans) {
+            this.text = text;
+            this.spans = spans;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.codingpractice;
+
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.text.Spannable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.BackgroundColorSpan;
+import android.text.style.BulletSpan;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.QuoteSpan;
+import android.text.style.RelativeSizeSpan;
+import android.text.style.StrikethroughSpan;
+import android.text.style.StyleSpan;
+import android.text.style.TypefaceSpan;
+
+import java.util.List;
+
+//turns a MarkdownDocument into Android spans, both for the note cards and for the editor
+public final class MarkdownRenderer {
+    private static final float[] HEADING_SIZES = {1.5f, 1.35f, 1.2f, 1.1f, 1.05f, 1f};
+    private static final int CODE_BACKGROUND = 0x1F808080;//light grey that works on dark themes too
+    private static final int MARKER_COLOR = Color.GRAY;
+    //every span class applyEditorSpans() sets
+    private static final Class<?>[] EDITOR_SPAN_CLASSES = {StyleSpan.class, RelativeSizeSpan.class,
+            StrikethroughSpan.class, TypefaceSpan.class, BackgroundColorSpan.class, ForegroundColorSpan.class};
+
+    private MarkdownRenderer() {
+    }
+
+    //the text for a note card, markers removed, this is safe to call off the main thread
+    public static Spanned render(MarkdownDocument document) {
+        MarkdownDocument.Display display = document.toDisplay();
+        SpannableStringBuilder text = new SpannableStringBuilder(display.text);
+        int[] spans = display.spans;
+        for (int i = 0; i < spans.length; i += 4) {
+            for (Object span : createSpans(spans[i], spans[i + 3], false)) {
+                text.setSpan(span, spans[i + 1], spans[i + 2], Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+        }
+        return text;
+    }
+
+    //styles the given blocks of the editor text in place, the markers stay but are greyed out,
+    //the spans that were set are added to out so they can be removed again when the blocks change
+    public static void applyEditorSpans(Spannable text, MarkdownDocument document, int firstBlock,
+                                        int blockCount, List<Object> out) {
+        document.visit(firstBlock, blockCount, new MarkdownDocument.Visitor() {
+            @Override
+            public void span(int type, int start, int end, int level) {
+                for (Object span : createSpans(type, level, true)) {
+                    set(span, start, end);
+                }
+            }
+
+            @Override
+            public void marker(int start, int end) {
+                set(new ForegroundColorSpan(MARKER_COLOR), start, end);
+            }
+
+            private void set(Object span, int start, int end) {
+                if (start < end) {
+                    text.setSpan(span, start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                    out.add(span);
+                }
+            }
+        });
+    }
+
+    //removes the editor styling that lies inside start..end. This also catches spans that are
+    //not ours anymore: an EditText saves its spans with its text and restores them as plain
+    //copies, so after a recreation they can only be recognized by their class
+    public static void removeEditorSpans(Spannable text, int start, int end) {
+        for (Object span : text.getSpans(start, end, Object.class)) {
+            if (isEditorSpan(span) && text.getSpanStart(span) >= start && text.getSpanEnd(span) <= end) {
+                text.removeSpan(span);
+            }
+        }
+    }
+
+    private static boolean isEditorSpan(Object span) {
+        for (Class<?> spanClass : EDITOR_SPAN_CLASSES) {
+            if (span.getClass() == spanClass) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object[] createSpans(int type, int level, boolean editor) {
+        switch (type) {
+            case MarkdownDocument.HEADING:
+                return new Object[]{new StyleSpan(Typeface.BOLD),
+                        new RelativeSizeSpan(HEADING_SIZES[level - 1])};
+            case MarkdownDocument.BOLD:
+                return new Object[]{new StyleSpan(Typeface.BOLD)};
+            case MarkdownDocument.ITALIC:
+                return new Object[]{new StyleSpan(Typeface.ITALIC)};
+            case MarkdownDocument.STRIKETHROUGH:
+                return new Object[]{new StrikethroughSpan()};
+            case MarkdownDocument.CODE:
+            case MarkdownDocument.CODE_BLOCK:
+                return new Object[]{new TypefaceSpan("monospace"), new BackgroundColorSpan(CODE_BACKGROUND)};
+            case MarkdownDocument.BULLET:
+                //(in the editor the "- " is still there, so no bullet is drawn next to it)
+                return editor ? new Object[0] : new Object[]{new BulletSpan(16)};
+            case MarkdownDocument.QUOTE:
+                return editor ? new Object[0] : new Object[]{new QuoteSpan()};
+            default:
+                return new Object[0];
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.codingpractice;
+
+import android.text.Editable;
+import android.text.TextWatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Highlights markdown in an EditText while typing. Only the blocks around each edit are
+ * parsed and styled again (see MarkdownDocument.edit()), the spans of the other blocks are
+ * moved along with the text by the Editable itself.
+ * The EditText must not contain any other StyleSpan, ForegroundColorSpan etc., since
+ * styling restored from a saved state is cleared as if it were ours.
+ */
+public class MarkdownTextWatcher implements TextWatcher {
+    private final MarkdownDocument document;
+    //the spans we set for every block, in block order
+    private final List<List<Object>> blockSpans = new ArrayList<>();
+    private MarkdownDocument.Change pendingChange;
+
+    //call this after the initial text is set, it styles the whole text once
+    //(dropping any styling the EditText restored after a recreation)
+    public MarkdownTextWatcher(Editable text) {
+        document = MarkdownDocument.parse(text.toString());
+        MarkdownRenderer.removeEditorSpans(text, 0, text.length());
+        addBlockSpans(text, 0, document.getBlockCount());
+    }
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+        pendingChange = document.edit(start, before, count, s.toString());
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+        if (pendingChange == null) {
+            return;
+        }
+        MarkdownDocument.Change change = pendingChange;
+        pendingChange = null;
+
+        List<List<Object>> removed = blockSpans.subList(change.firstBlock,
+                change.firstBlock + change.removedBlockCount);
+        for (List<Object> spans : removed) {
+            for (Object span : spans) {
+                s.removeSpan(span);
+            }
+        }
+        removed.clear();
+        //(styling restored by the EditText isn't in blockSpans, so clear the reparsed text too)
+        int lastBlock = change.firstBlock + change.addedBlockCount - 1;
+        MarkdownRenderer.removeEditorSpans(s, document.getBlockStart(change.firstBlock),
+                document.getBlockEnd(lastBlock));
+        addBlockSpans(s, change.firstBlock, change.addedBlockCount);
+    }
+
+    private void addBlockSpans(Editable text, int firstBlock, int blockCount) {
+        for (int b = firstBlock; b < firstBlock + blockCount; b++) {
+            List<Object> spans = new ArrayList<>();
+            MarkdownRenderer.applyEditorSpans(text, document, b, 1, spans);
+            blockSpans.add(b, spans);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.codingpractice;
 
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
@@ -16,9 +15,45 @@ public class NoteAdapter extends ListAdapter<Note, NoteAdapter.NoteViewHolder>{
     //(Now we are extending to ListAdapter class so we don't need to store the notes array ourselves
     // we can pass it to the ListAdapter super class and it will take care of the storing)
     private onItemClickListener listener;
+    private final MarkdownCache markdownCache = MarkdownCache.getInstance();
+    private final MarkdownCache.Listener markdownListener = this::onMarkdownRendered;
+    //(the cache lives as long as the process, so the adapter only listens while its list is
+    // on screen, RecyclerView doesn't detach the adapter when the activity is destroyed)
+    private final View.OnAttachStateChangeListener windowListener = new View.OnAttachStateChangeListener() {
+        @Override
+        public void onViewAttachedToWindow(View view) {
+            markdownCache.addListener(markdownListener);
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View view) {
+            markdownCache.removeListener(markdownListener);
+        }
+    };
+    private RecyclerView recyclerView;
+    private final NoteViewPool viewPool;
 
-    public NoteAdapter() {
+    public NoteAdapter(NoteViewPool viewPool) {
         super(DIFF_CALLBACK);
+        this.viewPool = viewPool;//cards are taken from here instead of being inflated on bind
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        this.recyclerView = recyclerView;
+        recyclerView.addOnAttachStateChangeListener(windowListener);
+        if(recyclerView.isAttachedToWindow()){
+            markdownCache.addListener(markdownListener);
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        this.recyclerView = null;
+        recyclerView.removeOnAttachStateChangeListener(windowListener);
+        markdownCache.removeListener(markdownListener);
     }
 
     private static final DiffUtil.ItemCallback<Note> DIFF_CALLBACK = new DiffUtil.ItemCallback<Note>() {
@@ -45,8 +80,7 @@ public class NoteAdapter extends ListAdapter<Note, NoteAdapter.NoteViewHolder>{
     @NonNull
     @Override
     public NoteViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View itemView = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.note_item,parent,false);
+        View itemView = viewPool.obtain(parent);
         return new NoteViewHolder(itemView);
     }
 
@@ -54,9 +88,33 @@ public class NoteAdapter extends ListAdapter<Note, NoteAdapter.NoteViewHolder>{
     public void onBindViewHolder(@NonNull NoteViewHolder holder, int position) {
         Note currentNote = getItem(position);//this will access the list that we pass to the super class
         holder.priorityText.setText(String.valueOf(currentNote.getPriority()));
-        holder.descriptionText.setText(currentNote.getDescription());
         holder.titleText.setText(currentNote.getTitle());
 
+        //(parsing markdown while binding would make scrolling stutter, so descriptions are
+        // rendered in the background and shown as plain text until they are ready)
+        holder.boundNote = currentNote;
+        CharSequence description = markdownCache.get(currentNote.getId(), currentNote.getDescription());
+        if(description == null){
+            description = currentNote.getDescription();
+            markdownCache.renderInBackground(currentNote.getId(), currentNote.getDescription());
+        }
+        holder.descriptionText.setText(description);
+    }
+
+    //swaps the plain text for the rendered markdown in the card that shows the note, if any
+    private void onMarkdownRendered(int noteId){
+        if(recyclerView == null){
+            return;
+        }
+        for(int i = 0; i < recyclerView.getChildCount(); i++){
+            NoteViewHolder holder = (NoteViewHolder) recyclerView.getChildViewHolder(recyclerView.getChildAt(i));
+            if(holder.boundNote != null && holder.boundNote.getId() == noteId){
+                CharSequence description = markdownCache.get(noteId, holder.boundNote.getDescription());
+                if(description != null){
+                    holder.descriptionText.setText(description);
+                }
+            }
+        }
     }
     //delete getItemCount() as ListAdapter will take care of them
     //and remove setNotes as ListAdapter have a method for that
@@ -71,12 +129,15 @@ public class NoteAdapter extends ListAdapter<Note, NoteAdapter.NoteViewHolder>{
         private TextView priorityText;
         private TextView titleText;
         private TextView descriptionText;
+        private Note boundNote;
 
         public NoteViewHolder(@NonNull View itemView) {
             super(itemView);
-            priorityText = itemView.findViewById(R.id.text_view_priority);
-            titleText = itemView.findViewById(R.id.text_view_title);
-            descriptionText = itemView.findViewById(R.id.text_view_description);
+            //(the card content already looked up its text views when it was inflated)
+            NoteItemLayout content = itemView.findViewById(R.id.note_item_content);
+            priorityText = content.getPriorityText();
+            titleText = content.getTitleText();
+            descriptionText = content.getDescriptionText();
 
             itemView.setOnClickListener(new View.OnClickListener() {
                 @Override
@@ -13,7 +13,7 @@ import java.util.List;
 public interface NoteDao {
 
     @Insert
-    void insert(Note note);
+    long insert(Note note);//returns the generated id
 
     @Update
     void update(Note note);
@@ -32,4 +32,12 @@ public interface NoteDao {
      * and the activity will be notified. And room takes care of all the necessary stuff to
      * update this room data object
      */
+
+    @Query("SELECT * FROM note_table WHERE id = :id")
+    Note getNoteById(int id);//synchronous, used to diff against the stored version on update
+
+    //used to load the notes matched by a tag filter, ids are passed in chunks because
+    //SQLite limits the number of bound parameters in a query
+    @Query("SELECT * FROM note_table WHERE id IN (:ids) ORDER BY priority")
+    List<Note> getNotesByIds(int[] ids);
 }
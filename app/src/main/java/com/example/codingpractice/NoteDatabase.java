@@ -7,6 +7,7 @@ import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 /**
@@ -15,11 +16,44 @@ import androidx.sqlite.db.SupportSQLiteDatabase;
  * we just uninstall and reinstall our app
  */
 
-@Database(entities = {Note.class}, version = 1)
+@Database(entities = {Note.class, Tag.class, NoteTagCrossRef.class, NoteRevision.class}, version = 3)
 public abstract class NoteDatabase extends RoomDatabase {
     private static NoteDatabase instance;//single instance
 
     public abstract NoteDao noteDao();//we later use this method to excess our DAO
+    public abstract TagDao tagDao();
+    public abstract NoteRevisionDao noteRevisionDao();
+
+    //version 2 added tags, only new tables so the notes are kept
+    //(the statements must match what Room generates for Tag and NoteTagCrossRef, otherwise
+    // Room rejects the migrated database when it is opened)
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `tag_table` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`name` TEXT)");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_tag_table_name` ON `tag_table` (`name`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `note_tag_table` (`noteId` INTEGER NOT NULL, "
+                    + "`tagId` INTEGER NOT NULL, PRIMARY KEY(`noteId`, `tagId`), "
+                    + "FOREIGN KEY(`noteId`) REFERENCES `note_table`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`tagId`) REFERENCES `tag_table`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_note_tag_table_tagId` ON `note_tag_table` (`tagId`)");
+        }
+    };
+
+    //version 3 added the revision history of notes, again only a new table
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `note_revision_table` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`noteId` INTEGER NOT NULL, `revision` INTEGER NOT NULL, `title` TEXT, "
+                    + "`priority` INTEGER NOT NULL, `keyframe` INTEGER NOT NULL, `content` TEXT, "
+                    + "`timestamp` INTEGER NOT NULL, "
+                    + "FOREIGN KEY(`noteId`) REFERENCES `note_table`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_note_revision_table_noteId_revision` "
+                    + "ON `note_revision_table` (`noteId`, `revision`)");
+        }
+    };
 
     //singleton pattern -> only one instance of our database
     public static synchronized NoteDatabase getInstance(Context context){
@@ -31,7 +65,15 @@ public abstract class NoteDatabase extends RoomDatabase {
             //we can't use new as we are in a abstract class so we do the following
             instance = Room.databaseBuilder(context.getApplicationContext(), NoteDatabase.class,
                     "note_database")
-                    .fallbackToDestructiveMigration()
+                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3)
+                    //(only a downgrade, e.g. installing an older build, still starts from scratch)
+                    .fallbackToDestructiveMigrationOnDowngrade()
+                    //WAL lets the reader pool keep reading while a write is in progress,
+                    //Room runs its LiveData queries on the query executor and transactions on
+                    //the transaction executor, see DatabaseExecutors
+                    .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                    .setQueryExecutor(DatabaseExecutors.read())
+                    .setTransactionExecutor(DatabaseExecutors.write())
                     .addCallback(roomCallBack)//here we attach call back to our database
                     //when our instance is create a call back's on create will be called and our database
                     //will be populated
@@ -39,10 +81,9 @@ public abstract class NoteDatabase extends RoomDatabase {
 
             //(if we update the version number of the database we have to tell Room how to
             // migrate to the new schema, if we don't do this and try to increase the version number
-            // our app will crash as we will get an "illegal state exception" and by
-            // fallbackToDestructiveMigration() we can avoid this, as it would delete our database
-            // with all its tables and create it from scratch. So if we increment the version number
-            // we will start with a new database)
+            // our app will crash as we will get an "illegal state exception". So every new version
+            // needs a Migration above, fallbackToDestructiveMigration() would avoid the crash too
+            // but it deletes the database with all the user's notes and creates it from scratch)
 
         }
         return instance;
@@ -55,7 +96,7 @@ public abstract class NoteDatabase extends RoomDatabase {
         public void onCreate(@NonNull SupportSQLiteDatabase db) {
             super.onCreate(db);
             //we call async task here
-            new PopulateDbAsyncTask(instance).execute();
+            new PopulateDbAsyncTask(instance).executeOnExecutor(DatabaseExecutors.write());
             //now we have to attach this call back to our database
         }
     };
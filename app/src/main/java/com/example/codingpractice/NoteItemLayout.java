@@ -0,0 +1,94 @@
+package com.example.codingpractice;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+/**
+ * Content of a note card: title at the start, priority at the end and the description
+ * below them. It replaces a RelativeLayout, which measures its children twice, with a
+ * layout that measures every TextView exactly once.
+ * The text views are looked up once in onFinishInflate(), which runs on the inflating
+ * thread, so the view holder doesn't need findViewById().
+ */
+public class NoteItemLayout extends ViewGroup {
+    private TextView priorityText;
+    private TextView titleText;
+    private TextView descriptionText;
+
+    public NoteItemLayout(Context context) {
+        super(context);
+    }
+
+    public NoteItemLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    @Override
+    protected void onFinishInflate() {
+        super.onFinishInflate();
+        priorityText = findViewById(R.id.text_view_priority);
+        titleText = findViewById(R.id.text_view_title);
+        descriptionText = findViewById(R.id.text_view_description);
+    }
+
+    public TextView getPriorityText() {
+        return priorityText;
+    }
+
+    public TextView getTitleText() {
+        return titleText;
+    }
+
+    public TextView getDescriptionText() {
+        return descriptionText;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int available = widthMode == MeasureSpec.UNSPECIFIED ? Integer.MAX_VALUE / 2
+                : Math.max(0, MeasureSpec.getSize(widthMeasureSpec) - horizontalPadding);
+        int unspecified = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+
+        //the priority gets its width first, the title takes what is left of the row
+        priorityText.measure(atMost(available), unspecified);
+        int titleAvailable = Math.max(0, available - priorityText.getMeasuredWidth());
+        titleText.measure(atMost(titleAvailable), unspecified);
+        descriptionText.measure(atMost(available), unspecified);
+
+        int rowWidth = titleText.getMeasuredWidth() + priorityText.getMeasuredWidth();
+        int width = horizontalPadding + Math.max(rowWidth, descriptionText.getMeasuredWidth());
+        int height = getPaddingTop() + getPaddingBottom() + rowHeight() + descriptionText.getMeasuredHeight();
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        boolean rtl = getLayoutDirection() == LAYOUT_DIRECTION_RTL;
+        int start = rtl ? right - left - getPaddingRight() : getPaddingLeft();
+        int end = rtl ? getPaddingLeft() : right - left - getPaddingRight();
+        int rowTop = getPaddingTop();
+
+        layoutAt(titleText, start, rowTop, rtl);
+        layoutAt(priorityText, end, rowTop, !rtl);
+        layoutAt(descriptionText, start, rowTop + rowHeight(), rtl);
+    }
+
+    private int rowHeight() {
+        return Math.max(titleText.getMeasuredHeight(), priorityText.getMeasuredHeight());
+    }
+
+    //places the child with one of its edges at x, growing to the left when leftwards is true
+    private static void layoutAt(View child, int x, int top, boolean leftwards) {
+        int childLeft = leftwards ? x - child.getMeasuredWidth() : x;
+        child.layout(childLeft, top, childLeft + child.getMeasuredWidth(), top + child.getMeasuredHeight());
+    }
+
+    private static int atMost(int size) {
+        return MeasureSpec.makeMeasureSpec(size, MeasureSpec.AT_MOST);
+    }
+}
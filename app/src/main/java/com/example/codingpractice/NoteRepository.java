@@ -1,56 +1,132 @@
 package com.example.codingpractice;
 
 import android.app.Application;
+import android.database.sqlite.SQLiteConstraintException;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.room.InvalidationTracker;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 public class NoteRepository {
+    //(SQLite allows at most 999 bound parameters per query, so the filtered ids are loaded in chunks)
+    private static final int MAX_IDS_PER_QUERY = 500;
+
+    private final NoteDatabase database;
     private final NoteDao noteDao;
+    private final TagDao tagDao;
+    private final NoteRevisionDao noteRevisionDao;
+    private final RevisionHistory revisionHistory;
     private final LiveData<List<Note>> allNotes;
+    private final LiveData<List<Tag>> allTags;
+    private final FilteredNotesLiveData filteredNotes;
+
+    //there is only one database, so all repositories share one tag index
+    private static final TagIndex tagIndex = new TagIndex();
 
     public NoteRepository(Application application){
         //Later in our view model we will also pass an Application
         //Application is the subclass of context we can use it as a context to create
         //our database instance
 
-        NoteDatabase database = NoteDatabase.getInstance(application);
+        database = NoteDatabase.getInstance(application);
         noteDao = database.noteDao();//(we normally can't call an abstract class like this
         //as it don't have a body, but we made a database instance using a builder so Room
         // auto-generates all the necessary code for noteDao() method, in short Room
         // sub-classes our abstract class)
 
+        tagDao = database.tagDao();
+        noteRevisionDao = database.noteRevisionDao();
+        revisionHistory = new RevisionHistory(noteRevisionDao);
+
         allNotes = noteDao.getAllNotes();
+        allTags = tagDao.getAllTags();
+        filteredNotes = new FilteredNotesLiveData(database, tagIndex);
     }
 
     //these methods are the API that the repository exposes to the outside
     public void insert(Note note){
-        new InsertNoteAsyncTask(noteDao).execute(note);
+        new InsertNoteAsyncTask(noteDao, tagIndex, filteredNotes).executeOnExecutor(DatabaseExecutors.write(), note);
     }
 
     public void update(Note note){
-        new UpdateNoteAsyncTask(noteDao).execute(note);
+        new UpdateNoteAsyncTask(database, revisionHistory)
+                .executeOnExecutor(DatabaseExecutors.write(), note);
+    }
+
+    //puts an older revision back, this is saved as a new revision so nothing is lost
+    public void restoreRevision(int noteId, int revision){
+        new RestoreRevisionAsyncTask(database, revisionHistory)
+                .executeOnExecutor(DatabaseExecutors.write(), noteId, revision);
     }
 
     public void delete(Note note){
-        new DeleteNoteAsyncTask(noteDao).execute(note);
+        new DeleteNoteAsyncTask(noteDao, tagIndex, filteredNotes).executeOnExecutor(DatabaseExecutors.write(), note);
     }
 
     public void deleteAllNotes(){
-        new DeleteAllNoteAsyncTask(noteDao).execute();
+        new DeleteAllNoteAsyncTask(noteDao, tagIndex, filteredNotes).executeOnExecutor(DatabaseExecutors.write());
+    }
+
+    public void insertTag(Tag tag){
+        new InsertTagAsyncTask(tagDao).executeOnExecutor(DatabaseExecutors.write(), tag);
+    }
+
+    public void deleteTag(Tag tag){
+        new DeleteTagAsyncTask(tagDao, tagIndex, filteredNotes).executeOnExecutor(DatabaseExecutors.write(), tag);
+    }
+
+    public void addTagToNote(int noteId, int tagId){
+        new AddTagToNoteAsyncTask(tagDao, tagIndex, filteredNotes)
+                .executeOnExecutor(DatabaseExecutors.write(), new NoteTagCrossRef(noteId, tagId));
+    }
+
+    public void removeTagFromNote(int noteId, int tagId){
+        new RemoveTagFromNoteAsyncTask(tagDao, tagIndex, filteredNotes)
+                .executeOnExecutor(DatabaseExecutors.write(), new NoteTagCrossRef(noteId, tagId));
+    }
+
+    //the result is posted to getFilteredNotes(), which keeps it up to date after later writes
+    public void filterNotesByTags(TagIndex.Filter filter){
+        filteredNotes.setFilter(filter);
     }
 
     //(Room will automatically execute the database operations that returns the LiveData
     // on the background thread, so we don't have to take care of getAllNotes(). But for other database
     // operations as above methods, we have to execute our code on the background thread ourselves,
-    // because room doesn't allow database operations on the main thread, since this could freeze our app)
+    // because room doesn't allow database operations on the main thread, since this could freeze our app.
+    // Writes run one at a time on DatabaseExecutors.write() and reads on the DatabaseExecutors.read() pool,
+    // which is also where Room runs the LiveData queries, so a long write never holds up the list)
     public LiveData<List<Note>> getAllNotes() {
         //retrieved from noteDao
         return allNotes;
     }
 
+    public LiveData<List<Tag>> getAllTags() {
+        return allTags;
+    }
+
+    public LiveData<List<Tag>> getTagsForNote(int noteId) {
+        return tagDao.getTagsForNote(noteId);
+    }
+
+    public LiveData<List<NoteRevision>> getRevisionsForNote(int noteId) {
+        return noteRevisionDao.getRevisionsForNote(noteId);
+    }
+
+    public LiveData<List<Note>> getFilteredNotes() {
+        return filteredNotes;
+    }
+
     //to execute our tasks on the background thread we will use async tasks
 
     //it has to be static so it doesn't have a reference to the repository itself,
@@ -60,29 +136,69 @@ public class NoteRepository {
         //since the class is static so we can't access the noteDao of our repository directly
         //so we have to pass it over a constructor
 
-        private InsertNoteAsyncTask(NoteDao noteDao){
+        private TagIndex tagIndex;
+        private FilteredNotesLiveData filteredNotes;
+
+        private InsertNoteAsyncTask(NoteDao noteDao, TagIndex tagIndex, FilteredNotesLiveData filteredNotes){
             this.noteDao = noteDao;
+            this.tagIndex = tagIndex;
+            this.filteredNotes = filteredNotes;
         }
 
         @Override
         protected Void doInBackground(Note... notes) {
-            noteDao.insert(notes[0]);
+            long id = noteDao.insert(notes[0]);
+            tagIndex.noteAdded((int) id);
+            filteredNotes.indexChanged();
             return null;
         }
     }
 
+    //(updates are saved together with a revision of the note, inside one transaction so the
+    // history can never get out of step with the note itself)
+    private static void updateWithRevision(NoteDatabase database, RevisionHistory revisionHistory, Note note){
+        database.runInTransaction(() -> {
+            NoteDao noteDao = database.noteDao();
+            Note previous = noteDao.getNoteById(note.getId());
+            if(previous == null){
+                return;//the note was deleted in the meantime
+            }
+            revisionHistory.record(previous, note);
+            noteDao.update(note);
+        });
+    }
+
     private static class UpdateNoteAsyncTask extends AsyncTask<Note, Void, Void> {//AsyncTask<param, progress, result>
-        private NoteDao noteDao; //we need noteDao to make database operations
-        //since the class is static so we can't access the noteDao of our repository directly
-        //so we have to pass it over a constructor
+        private NoteDatabase database; //the revision has to be written in the same transaction
+        private RevisionHistory revisionHistory;
 
-        private UpdateNoteAsyncTask(NoteDao noteDao){
-            this.noteDao = noteDao;
+        private UpdateNoteAsyncTask(NoteDatabase database, RevisionHistory revisionHistory){
+            this.database = database;
+            this.revisionHistory = revisionHistory;
         }
 
         @Override
         protected Void doInBackground(Note... notes) {
-            noteDao.update(notes[0]);
+            updateWithRevision(database, revisionHistory, notes[0]);
+            return null;
+        }
+    }
+
+    private static class RestoreRevisionAsyncTask extends AsyncTask<Integer, Void, Void> {
+        private NoteDatabase database;
+        private RevisionHistory revisionHistory;
+
+        private RestoreRevisionAsyncTask(NoteDatabase database, RevisionHistory revisionHistory){
+            this.database = database;
+            this.revisionHistory = revisionHistory;
+        }
+
+        @Override
+        protected Void doInBackground(Integer... params) {//params: note id, revision
+            Note note = revisionHistory.reconstruct(params[0], params[1]);
+            if(note != null){
+                updateWithRevision(database, revisionHistory, note);
+            }
             return null;
         }
     }
@@ -92,13 +208,20 @@ public class NoteRepository {
         //since the class is static so we can't access the noteDao of our repository directly
         //so we have to pass it over a constructor
 
-        private DeleteNoteAsyncTask(NoteDao noteDao){
+        private TagIndex tagIndex;
+        private FilteredNotesLiveData filteredNotes;
+
+        private DeleteNoteAsyncTask(NoteDao noteDao, TagIndex tagIndex, FilteredNotesLiveData filteredNotes){
             this.noteDao = noteDao;
+            this.tagIndex = tagIndex;
+            this.filteredNotes = filteredNotes;
         }
 
         @Override
         protected Void doInBackground(Note... notes) {
-            noteDao.delete(notes[0]);
+            noteDao.delete(notes[0]);//its tags are removed by the foreign key cascade
+            tagIndex.noteRemoved(notes[0].getId());
+            filteredNotes.indexChanged();
             return null;
         }
     }
@@ -108,14 +231,216 @@ public class NoteRepository {
         //since the class is static so we can't access the noteDao of our repository directly
         //so we have to pass it over a constructor
 
-        private DeleteAllNoteAsyncTask(NoteDao noteDao){
+        private TagIndex tagIndex;
+        private FilteredNotesLiveData filteredNotes;
+
+        private DeleteAllNoteAsyncTask(NoteDao noteDao, TagIndex tagIndex, FilteredNotesLiveData filteredNotes){
             this.noteDao = noteDao;
+            this.tagIndex = tagIndex;
+            this.filteredNotes = filteredNotes;
         }
 
         @Override
         protected Void doInBackground(Void... voids) {
             noteDao.deleteAll();
+            tagIndex.allNotesRemoved();
+            filteredNotes.indexChanged();
             return null;
         }
     }
+
+    private static class InsertTagAsyncTask extends AsyncTask<Tag, Void, Void> {
+        private TagDao tagDao;
+
+        private InsertTagAsyncTask(TagDao tagDao){
+            this.tagDao = tagDao;
+        }
+
+        @Override
+        protected Void doInBackground(Tag... tags) {
+            tagDao.insert(tags[0]);//a new tag isn't attached to any note yet, so the index doesn't change
+            return null;
+        }
+    }
+
+    private static class DeleteTagAsyncTask extends AsyncTask<Tag, Void, Void> {
+        private TagDao tagDao;
+        private TagIndex tagIndex;
+        private FilteredNotesLiveData filteredNotes;
+
+        private DeleteTagAsyncTask(TagDao tagDao, TagIndex tagIndex, FilteredNotesLiveData filteredNotes){
+            this.tagDao = tagDao;
+            this.tagIndex = tagIndex;
+            this.filteredNotes = filteredNotes;
+        }
+
+        @Override
+        protected Void doInBackground(Tag... tags) {
+            tagDao.delete(tags[0]);
+            tagIndex.tagDeleted(tags[0].getId());
+            filteredNotes.indexChanged();
+            return null;
+        }
+    }
+
+    private static class AddTagToNoteAsyncTask extends AsyncTask<NoteTagCrossRef, Void, Void> {
+        private TagDao tagDao;
+        private TagIndex tagIndex;
+        private FilteredNotesLiveData filteredNotes;
+
+        private AddTagToNoteAsyncTask(TagDao tagDao, TagIndex tagIndex, FilteredNotesLiveData filteredNotes){
+            this.tagDao = tagDao;
+            this.tagIndex = tagIndex;
+            this.filteredNotes = filteredNotes;
+        }
+
+        @Override
+        protected Void doInBackground(NoteTagCrossRef... crossRefs) {
+            try {
+                tagDao.addTagToNote(crossRefs[0]);
+            } catch (SQLiteConstraintException e) {
+                //(IGNORE only covers the primary key, if the note or the tag was deleted before
+                // this task ran the foreign key fails, and there is nothing left to tag)
+                return null;
+            }
+            tagIndex.tagAdded(crossRefs[0].getNoteId(), crossRefs[0].getTagId());
+            filteredNotes.indexChanged();
+            return null;
+        }
+    }
+
+    private static class RemoveTagFromNoteAsyncTask extends AsyncTask<NoteTagCrossRef, Void, Void> {
+        private TagDao tagDao;
+        private TagIndex tagIndex;
+        private FilteredNotesLiveData filteredNotes;
+
+        private RemoveTagFromNoteAsyncTask(TagDao tagDao, TagIndex tagIndex, FilteredNotesLiveData filteredNotes){
+            this.tagDao = tagDao;
+            this.tagIndex = tagIndex;
+            this.filteredNotes = filteredNotes;
+        }
+
+        @Override
+        protected Void doInBackground(NoteTagCrossRef... crossRefs) {
+            tagDao.removeTagFromNote(crossRefs[0]);
+            tagIndex.tagRemoved(crossRefs[0].getNoteId(), crossRefs[0].getTagId());
+            filteredNotes.indexChanged();
+            return null;
+        }
+    }
+
+    //Notes matching the last tag filter. While it is observed it runs the filter again after
+    //every write task that changed the tag index, and when Room reports a change to the notes
+    //themselves (e.g. a new title or priority)
+    private static class FilteredNotesLiveData extends MutableLiveData<List<Note>> {
+        private final NoteDatabase database;
+        private final TagIndex tagIndex;
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+        //(filters run in parallel on the reader pool, so an older one can finish last,
+        // only the result of the newest one is shown)
+        private int generation;
+        private TagIndex.Filter filter;
+
+        //(Room reports a commit while the write task is still running, before it has updated
+        // the tag index, queueing behind it on the writer thread makes the filter see the update)
+        private final InvalidationTracker.Observer observer =
+                new InvalidationTracker.Observer("note_table") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                DatabaseExecutors.write().execute(FilteredNotesLiveData.this::indexChanged);
+            }
+        };
+
+        private FilteredNotesLiveData(NoteDatabase database, TagIndex tagIndex){
+            this.database = database;
+            this.tagIndex = tagIndex;
+        }
+
+        private void setFilter(TagIndex.Filter filter){
+            this.filter = filter;
+            refresh();
+        }
+
+        //(Room's own LiveData registers its observer off the main thread too, since
+        // registering can create the triggers in the database. It has to be a serial executor,
+        // on the reader pool a quick inactive/active cycle could run the remove after the add)
+        @Override
+        protected void onActive() {
+            DatabaseExecutors.write().execute(() -> database.getInvalidationTracker().addObserver(observer));
+            refresh();
+        }
+
+        @Override
+        protected void onInactive() {
+            DatabaseExecutors.write().execute(() -> database.getInvalidationTracker().removeObserver(observer));
+        }
+
+        //called on the writer thread once the tag index is up to date with a write
+        private void indexChanged(){
+            mainHandler.post(this::refresh);
+        }
+
+        //main thread only, onActive() catches up on anything missed while nobody was observing
+        private void refresh(){
+            if(filter == null || !hasActiveObservers()){
+                return;
+            }
+            if(!tagIndex.isBuilt()){
+                //(the index is built once, on the writer thread: every write is ordered before
+                // or after it there, so none can be missed between loading and building, and
+                // the reader pool is not held up by a full scan of the tag table)
+                TagDao tagDao = database.tagDao();
+                DatabaseExecutors.write().execute(() -> {
+                    if(!tagIndex.isBuilt()){
+                        tagIndex.rebuild(tagDao.getAllNoteIds(), tagDao.getAllNoteTags());
+                    }
+                    mainHandler.post(this::refresh);
+                });
+                return;
+            }
+            new FilterNotesAsyncTask(database.noteDao(), tagIndex, this, ++generation)
+                    .executeOnExecutor(DatabaseExecutors.read(), filter);
+        }
+
+        private void deliver(int resultGeneration, List<Note> notes){
+            if(resultGeneration == generation){
+                setValue(notes);
+            }
+        }
+    }
+
+    //(filters run on the reader pool next to the writes, the index is already built by then)
+    private static class FilterNotesAsyncTask extends AsyncTask<TagIndex.Filter, Void, List<Note>> {
+        private NoteDao noteDao;
+        private TagIndex tagIndex;
+        private FilteredNotesLiveData result;
+        private int generation;
+
+        private FilterNotesAsyncTask(NoteDao noteDao, TagIndex tagIndex,
+                                     FilteredNotesLiveData result, int generation){
+            this.noteDao = noteDao;
+            this.tagIndex = tagIndex;
+            this.result = result;
+            this.generation = generation;
+        }
+
+        @Override
+        protected List<Note> doInBackground(TagIndex.Filter... filters) {
+            int[] ids = tagIndex.filter(filters[0]);
+
+            List<Note> notes = new ArrayList<>(ids.length);
+            for(int from = 0; from < ids.length; from += MAX_IDS_PER_QUERY){
+                int to = Math.min(from + MAX_IDS_PER_QUERY, ids.length);
+                notes.addAll(noteDao.getNotesByIds(Arrays.copyOfRange(ids, from, to)));
+            }
+            //every chunk is ordered by priority, so order the merged list the same way as getAllNotes()
+            Collections.sort(notes, (a, b) -> Integer.compare(a.getPriority(), b.getPriority()));
+            return notes;
+        }
+
+        @Override
+        protected void onPostExecute(List<Note> notes) {
+            result.deliver(generation, notes);
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package com.example.codingpractice;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+//one saved version of a note, revisions of a note are numbered 1, 2, 3...
+//(a keyframe stores the full description, every other revision only stores a TextDelta
+// against the revision before it, title and priority are small so they are always stored)
+@Entity(tableName = "note_revision_table",
+        foreignKeys = @ForeignKey(entity = Note.class, parentColumns = "id", childColumns = "noteId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index(value = {"noteId", "revision"}, unique = true)})
+public class NoteRevision {
+
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    private int noteId;
+    private int revision;
+    private String title;
+    private int priority;
+    private boolean keyframe;
+    private String content;//full description for keyframes, a delta otherwise
+    private long timestamp;
+
+    public NoteRevision(int noteId, int revision, String title, int priority,
+                        boolean keyframe, String content, long timestamp) {
+        this.noteId = noteId;
+        this.revision = revision;
+        this.title = title;
+        this.priority = priority;
+        this.keyframe = keyframe;
+        this.content = content;
+        this.timestamp = timestamp;
+    }
+
+    //setters
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public void setKeyframe(boolean keyframe) {
+        this.keyframe = keyframe;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    //getters
+    public int getId() {
+        return id;
+    }
+
+    public int getNoteId() {
+        return noteId;
+    }
+
+    public int getRevision() {
+        return revision;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.codingpractice;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.List;
+
+@Dao
+public interface NoteRevisionDao {
+
+    @Insert
+    void insert(NoteRevision revision);
+
+    @Update
+    void update(NoteRevision revision);
+
+    @Query("SELECT * FROM note_revision_table WHERE noteId = :noteId ORDER BY revision DESC")
+    LiveData<List<NoteRevision>> getRevisionsForNote(int noteId);
+
+    //(the queries below are used by RevisionHistory and must be called from a background thread)
+    @Query("SELECT * FROM note_revision_table WHERE noteId = :noteId ORDER BY revision DESC LIMIT 1")
+    NoteRevision getLatestRevision(int noteId);
+
+    @Query("SELECT * FROM note_revision_table WHERE noteId = :noteId AND revision = :revision")
+    NoteRevision getRevision(int noteId, int revision);
+
+    @Query("SELECT * FROM note_revision_table WHERE noteId = :noteId AND revision <= :revision " +
+            "AND keyframe = 1 ORDER BY revision DESC LIMIT 1")
+    NoteRevision getKeyframeAtOrBefore(int noteId, int revision);
+
+    //revisions in (fromRevision, toRevision], oldest first
+    @Query("SELECT * FROM note_revision_table WHERE noteId = :noteId AND revision > :fromRevision " +
+            "AND revision <= :toRevision ORDER BY revision")
+    List<NoteRevision> getRevisionsBetween(int noteId, int fromRevision, int toRevision);
+
+    @Query("DELETE FROM note_revision_table WHERE noteId = :noteId AND revision < :revision")
+    void deleteRevisionsBefore(int noteId, int revision);
+}
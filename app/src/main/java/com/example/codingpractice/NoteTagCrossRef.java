@@ -0,0 +1,34 @@
+package com.example.codingpractice;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+//join table between notes and tags, one row for every tag attached to a note
+//(when a note or a tag is deleted, CASCADE makes SQLite remove its rows here as well)
+@Entity(tableName = "note_tag_table",
+        primaryKeys = {"noteId", "tagId"},
+        foreignKeys = {
+                @ForeignKey(entity = Note.class, parentColumns = "id", childColumns = "noteId",
+                        onDelete = ForeignKey.CASCADE),
+                @ForeignKey(entity = Tag.class, parentColumns = "id", childColumns = "tagId",
+                        onDelete = ForeignKey.CASCADE)
+        },
+        indices = {@Index("tagId")}) //noteId is already covered by the primary key
+public class NoteTagCrossRef {
+    private int noteId;
+    private int tagId;
+
+    public NoteTagCrossRef(int noteId, int tagId) {
+        this.noteId = noteId;
+        this.tagId = tagId;
+    }
+
+    public int getNoteId() {
+        return noteId;
+    }
+
+    public int getTagId() {
+        return tagId;
+    }
+}
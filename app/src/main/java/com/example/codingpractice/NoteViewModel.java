@@ -46,8 +46,48 @@ public class NoteViewModel extends AndroidViewModel {
         repository.deleteAllNotes();
     }
 
+    public void restoreRevision(int noteId, int revision){
+        repository.restoreRevision(noteId, revision);
+    }
+
+    public void insertTag(Tag tag){
+        repository.insertTag(tag);
+    }
+
+    public void deleteTag(Tag tag){
+        repository.deleteTag(tag);
+    }
+
+    public void addTagToNote(int noteId, int tagId){
+        repository.addTagToNote(noteId, tagId);
+    }
+
+    public void removeTagFromNote(int noteId, int tagId){
+        repository.removeTagFromNote(noteId, tagId);
+    }
+
+    public void filterNotesByTags(TagIndex.Filter filter){
+        repository.filterNotesByTags(filter);
+    }
+
     public LiveData<List<Note>> getAllNotes() {
         return allNotes;
     }
 
+    public LiveData<List<Tag>> getAllTags() {
+        return repository.getAllTags();
+    }
+
+    public LiveData<List<Tag>> getTagsForNote(int noteId) {
+        return repository.getTagsForNote(noteId);
+    }
+
+    public LiveData<List<NoteRevision>> getRevisionsForNote(int noteId) {
+        return repository.getRevisionsForNote(noteId);
+    }
+
+    public LiveData<List<Note>> getFilteredNotes() {
+        return repository.getFilteredNotes();
+    }
+
 }
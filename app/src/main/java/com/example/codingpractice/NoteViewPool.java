@@ -0,0 +1,144 @@
+package com.example.codingpractice;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Note cards inflated ahead of time on a background thread, so the first screen of notes
+ * and fast flings don't pay for inflation on the UI thread. The pool is first filled for
+ * an estimated screenful of cards; once the RecyclerView and its first card are laid out,
+ * that and the RecycledViewPool are sized to the cards that really fit on screen.
+ * Cards are inflated with a copy of the activity's LayoutInflater, so its view factory
+ * (e.g. AppCompat's, which turns a TextView into a MaterialTextView) applies to pooled
+ * cards just like to the ones inflated on the spot. That factory then runs off the main
+ * thread, which AppCompat doesn't promise to support (it works for the plain widgets of
+ * note_item.xml). Like AsyncLayoutInflater, a card that fails to inflate in the background
+ * is simply left out, and obtain() inflates it on the UI thread instead.
+ * Must only be used from the main thread.
+ */
+public class NoteViewPool {
+    private static final String TAG = "NoteViewPool";
+    //a card with a one line description, used until a real card has been measured
+    private static final int ESTIMATED_CARD_HEIGHT_DP = 72;
+    //cards needed on top of the ones that fit: partly visible ones and RecyclerView's prefetch
+    private static final int EXTRA_CARDS = 3;
+    //(one thread for the whole process, requests queue up here without ever blocking the caller)
+    private static final ExecutorService INFLATE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "note-card-inflate");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ArrayDeque<View> views = new ArrayDeque<>();
+    private final LayoutInflater inflater;
+    private final LayoutInflater backgroundInflater;//(LayoutInflater isn't meant to be shared between threads)
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int cardHeight;//estimated until the first card has been laid out
+    private boolean cardMeasured;
+    private int inflating;//requested from the inflate thread and not delivered yet
+    private int handedOut;
+
+    public NoteViewPool(@NonNull Context context) {
+        inflater = LayoutInflater.from(context);
+        backgroundInflater = inflater.cloneInContext(context);
+        float density = context.getResources().getDisplayMetrics().density;
+        cardHeight = Math.round(ESTIMATED_CARD_HEIGHT_DP * density);
+    }
+
+    //call in onCreate(), before the RecyclerView has been laid out
+    public void attach(@NonNull RecyclerView recyclerView) {
+        int screenHeight = recyclerView.getResources().getDisplayMetrics().heightPixels;
+        preInflate(recyclerView, cardsFor(screenHeight, cardHeight));
+
+        recyclerView.addOnLayoutChangeListener((view, left, top, right, bottom,
+                                                oldLeft, oldTop, oldRight, oldBottom) -> {
+            if (bottom - top != oldBottom - oldTop) {//first layout or e.g. a rotation
+                resize(recyclerView);
+            }
+        });
+        //(the notes are loaded asynchronously, so the first layout of the RecyclerView usually
+        // has no cards yet, the size is corrected once the first card has been laid out)
+        recyclerView.addOnChildAttachStateChangeListener(new RecyclerView.OnChildAttachStateChangeListener() {
+            @Override
+            public void onChildViewAttachedToWindow(@NonNull View card) {
+                if (cardMeasured) {
+                    recyclerView.removeOnChildAttachStateChangeListener(this);
+                    return;
+                }
+                card.addOnLayoutChangeListener(new View.OnLayoutChangeListener() {
+                    @Override
+                    public void onLayoutChange(View view, int left, int top, int right, int bottom,
+                                               int oldLeft, int oldTop, int oldRight, int oldBottom) {
+                        view.removeOnLayoutChangeListener(this);
+                        if (!cardMeasured && bottom > top) {
+                            cardMeasured = true;
+                            cardHeight = bottom - top;
+                            resize(recyclerView);
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onChildViewDetachedFromWindow(@NonNull View card) {
+            }
+        });
+    }
+
+    public void preInflate(@NonNull ViewGroup parent, int cards) {
+        for (int i = handedOut + views.size() + inflating; i < cards; i++) {
+            inflating++;
+            INFLATE_EXECUTOR.execute(() -> {
+                View view;
+                try {
+                    view = backgroundInflater.inflate(R.layout.note_item, parent, false);
+                } catch (RuntimeException e) {
+                    //(an uncaught exception would kill the process, and inflating would
+                    // never drop back so the pool would stop topping itself up)
+                    Log.w(TAG, "Inflating a note card in the background failed", e);
+                    mainHandler.post(() -> inflating--);
+                    return;
+                }
+                mainHandler.post(() -> {
+                    inflating--;
+                    views.add(view);
+                });
+            });
+        }
+    }
+
+    //a pre-inflated card if there is one left, otherwise the card is inflated right here
+    public View obtain(@NonNull ViewGroup parent) {
+        handedOut++;
+        View view = views.poll();
+        return view != null ? view : inflater.inflate(R.layout.note_item, parent, false);
+    }
+
+    public int getPooledCount() {
+        return views.size();
+    }
+
+    private void resize(RecyclerView recyclerView) {
+        int cards = cardsFor(recyclerView.getHeight(), cardHeight);
+        //(the default of 5 recycled cards is less than a screenful, so a list update that
+        // rebinds every card would throw away holders and inflate them again)
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(0, cards);
+        preInflate(recyclerView, cards);
+    }
+
+    private static int cardsFor(int viewportHeight, int cardHeight) {
+        return (viewportHeight + cardHeight - 1) / cardHeight + EXTRA_CARDS;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.codingpractice;
+
+import java.util.List;
+
+/**
+ * Records a revision every time a note is updated and rebuilds any stored revision.
+ * Every KEYFRAME_INTERVAL-th revision stores the full description, the others only store a
+ * TextDelta against the revision before, so rebuilding a revision never applies more than
+ * KEYFRAME_INTERVAL - 1 deltas. Only the last MAX_REVISIONS revisions of a note are kept.
+ * Runs database queries, so it must be called from a background thread and inside a
+ * transaction together with the note update it records.
+ */
+public class RevisionHistory {
+    public static final int KEYFRAME_INTERVAL = 20;
+    public static final int MAX_REVISIONS = 100;
+
+    private final NoteRevisionDao revisionDao;
+    private final int keyframeInterval;
+    private final int maxRevisions;
+
+    public RevisionHistory(NoteRevisionDao revisionDao) {
+        this(revisionDao, KEYFRAME_INTERVAL, MAX_REVISIONS);
+    }
+
+    public RevisionHistory(NoteRevisionDao revisionDao, int keyframeInterval, int maxRevisions) {
+        this.revisionDao = revisionDao;
+        this.keyframeInterval = keyframeInterval;
+        this.maxRevisions = maxRevisions;
+    }
+
+    //previous is the note as it is stored right now, updated is what it is about to be replaced with
+    public void record(Note previous, Note updated) {
+        if (sameContent(previous, updated)) {
+            return;//nothing changed, e.g. the note was saved without edits
+        }
+        int noteId = updated.getId();
+        NoteRevision latest = revisionDao.getLatestRevision(noteId);
+        int revision;
+        if (latest == null) {
+            //the first update of a note also saves the version it started from
+            revisionDao.insert(keyframe(previous, 1));
+            revision = 2;
+        } else {
+            revision = latest.getRevision() + 1;
+        }
+
+        //(every update goes through here, so the stored note always equals the latest
+        // revision and we can diff against it without rebuilding anything)
+        NoteRevision newRevision;
+        if ((revision - 1) % keyframeInterval == 0) {
+            newRevision = keyframe(updated, revision);
+        } else {
+            String delta = TextDelta.diff(previous.getDescription(), updated.getDescription());
+            newRevision = delta.length() < updated.getDescription().length()
+                    ? new NoteRevision(noteId, revision, updated.getTitle(), updated.getPriority(),
+                    false, delta, System.currentTimeMillis())
+                    : keyframe(updated, revision);//a rewrite is cheaper to store in full
+        }
+        revisionDao.insert(newRevision);
+        prune(noteId, revision);
+    }
+
+    //returns the note as it was at the given revision, or null if that revision isn't stored
+    public Note reconstruct(int noteId, int revision) {
+        NoteRevision keyframe = revisionDao.getKeyframeAtOrBefore(noteId, revision);
+        if (keyframe == null) {
+            return null;
+        }
+        NoteRevision target = keyframe;
+        String description = keyframe.getContent();
+        List<NoteRevision> deltas = revisionDao.getRevisionsBetween(noteId, keyframe.getRevision(), revision);
+        for (NoteRevision delta : deltas) {
+            description = delta.isKeyframe() ? delta.getContent()
+                    : TextDelta.patch(description, delta.getContent());
+            target = delta;
+        }
+        if (target.getRevision() != revision) {
+            return null;
+        }
+        Note note = new Note(target.getTitle(), description, target.getPriority());
+        note.setId(noteId);
+        return note;
+    }
+
+    //drops revisions older than the last maxRevisions, the oldest one that stays is turned
+    //into a keyframe first so it can still be rebuilt
+    private void prune(int noteId, int latestRevision) {
+        int oldestKept = latestRevision - maxRevisions + 1;
+        if (oldestKept <= 1) {
+            return;
+        }
+        NoteRevision oldest = revisionDao.getRevision(noteId, oldestKept);
+        if (oldest == null) {
+            return;
+        }
+        if (!oldest.isKeyframe()) {
+            oldest.setContent(reconstruct(noteId, oldestKept).getDescription());
+            oldest.setKeyframe(true);
+            revisionDao.update(oldest);
+        }
+        revisionDao.deleteRevisionsBefore(noteId, oldestKept);
+    }
+
+    private static NoteRevision keyframe(Note note, int revision) {
+        return new NoteRevision(note.getId(), revision, note.getTitle(), note.getPriority(),
+                true, note.getDescription(), System.currentTimeMillis());
+    }
+
+    private static boolean sameContent(Note a, Note b) {
+        return a.getTitle().equals(b.getTitle())
+                && a.getDescription().equals(b.getDescription())
+                && a.getPriority() == b.getPriority();
+    }
+}
@@ -0,0 +1,465 @@
+package com.example.codingpractice;
+
+import java.util.Arrays;
+
+/**
+ * A small compressed bitmap of non-negative ints, in the style of Roaring bitmaps.
+ * The high 16 bits of a value pick a container and the low 16 bits are stored in it.
+ * Sparse containers (up to 4096 values) are sorted char arrays, dense ones are
+ * 65536-bit bitmaps, so a container never takes more than 8KB.
+ */
+public class RoaringBitmap {
+    private static final int INITIAL_CAPACITY = 4;
+
+    //keys[i] is the high 16 bits of every value stored in containers[i], kept sorted
+    private char[] keys = new char[INITIAL_CAPACITY];
+    private Container[] containers = new Container[INITIAL_CAPACITY];
+    private int size;
+
+    public void add(int value) {
+        char high = highBits(value);
+        int i = indexOfKey(high);
+        if (i >= 0) {
+            containers[i] = containers[i].add(lowBits(value));
+        } else {
+            insertContainerAt(-i - 1, high, new ArrayContainer().add(lowBits(value)));
+        }
+    }
+
+    public void remove(int value) {
+        int i = indexOfKey(highBits(value));
+        if (i < 0) {
+            return;
+        }
+        containers[i] = containers[i].remove(lowBits(value));
+        if (containers[i].cardinality() == 0) {
+            removeContainerAt(i);
+        }
+    }
+
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    //values in ascending order
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            offset = containers[i].copyTo(values, offset, keys[i] << 16);
+        }
+        return values;
+    }
+
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.appendIfNotEmpty(a.keys[i], a.containers[i].and(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.appendIfNotEmpty(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.appendIfNotEmpty(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.appendIfNotEmpty(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    //values of a that are not in b
+    public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size) {
+            if (j == b.size || a.keys[i] < b.keys[j]) {
+                result.appendIfNotEmpty(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.appendIfNotEmpty(a.keys[i], a.containers[i].andNot(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    private static char highBits(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char lowBits(int value) {
+        return (char) value;
+    }
+
+    private int indexOfKey(char key) {
+        //(checking the last key first makes adding values in ascending order cheap)
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else if (keys[middle] > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void insertContainerAt(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainerAt(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    //only used by the set operations, which produce keys in ascending order
+    private void appendIfNotEmpty(char key, Container container) {
+        if (container.cardinality() > 0) {
+            insertContainerAt(size, key, container);
+        }
+    }
+
+    //holds the low 16 bits of the values that share the same high 16 bits
+    //(operations may return a different container type, so callers always keep the result)
+    private abstract static class Container {
+        //above this many values a bitmap is smaller than a sorted array
+        static final int MAX_ARRAY_SIZE = 4096;
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract int copyTo(int[] destination, int offset, int highBits);
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == MAX_ARRAY_SIZE) {
+                return toBitmap().add(value);
+            }
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, MAX_ARRAY_SIZE));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer that = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < cardinality && j < that.cardinality) {
+                    if (values[i] < that.values[j]) {
+                        i++;
+                    } else if (values[i] > that.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer that = (ArrayContainer) other;
+            char[] result = new char[cardinality + that.cardinality];
+            int count = 0, i = 0, j = 0;
+            while (i < cardinality || j < that.cardinality) {
+                if (j == that.cardinality || (i < cardinality && values[i] < that.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > that.values[j]) {
+                    result[count++] = that.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer merged = new ArrayContainer(result, count);
+            return count > MAX_ARRAY_SIZE ? merged.toBitmap() : merged;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    result[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 4)), cardinality);
+        }
+
+        @Override
+        int copyTo(int[] destination, int offset, int highBits) {
+            for (int i = 0; i < cardinality; i++) {
+                destination[offset++] = highBits | values[i];
+            }
+            return offset;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before | (1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before & ~(1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality--;
+            }
+            return cardinality <= MAX_ARRAY_SIZE ? toArrayContainer() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] thatWords = ((BitmapContainer) other).words;
+            long[] result = new long[1024];
+            int count = 0;
+            for (int i = 0; i < result.length; i++) {
+                result[i] = words[i] & thatWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            return fromWords(result, count);
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer result = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer that = (ArrayContainer) other;
+                for (int i = 0; i < that.cardinality; i++) {
+                    result.add(that.values[i]);
+                }
+                return result;
+            }
+            long[] thatWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < result.words.length; i++) {
+                result.words[i] |= thatWords[i];
+                count += Long.bitCount(result.words[i]);
+            }
+            result.cardinality = count;
+            return result;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = Arrays.copyOf(words, words.length);
+            int count = cardinality;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer that = (ArrayContainer) other;
+                for (int i = 0; i < that.cardinality; i++) {
+                    char value = that.values[i];
+                    if ((result[value >>> 6] & (1L << value)) != 0) {
+                        result[value >>> 6] &= ~(1L << value);
+                        count--;
+                    }
+                }
+            } else {
+                long[] thatWords = ((BitmapContainer) other).words;
+                count = 0;
+                for (int i = 0; i < result.length; i++) {
+                    result[i] &= ~thatWords[i];
+                    count += Long.bitCount(result[i]);
+                }
+            }
+            return fromWords(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(Arrays.copyOf(words, words.length), cardinality);
+        }
+
+        @Override
+        int copyTo(int[] destination, int offset, int highBits) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    destination[offset++] = highBits | (i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return offset;
+        }
+
+        private static Container fromWords(long[] words, int cardinality) {
+            BitmapContainer bitmap = new BitmapContainer(words, cardinality);
+            return cardinality <= MAX_ARRAY_SIZE ? bitmap.toArrayContainer() : bitmap;
+        }
+
+        private ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(cardinality, 4)];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.codingpractice;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+//a tag is a label that can be attached to any number of notes
+@Entity(tableName = "tag_table",
+        indices = {@Index(value = "name", unique = true)}) //two tags can't have the same name
+public class Tag {
+
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    private String name;
+
+    public Tag(String name) {
+        this.name = name;
+    }
+
+    //setter
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    //getters
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
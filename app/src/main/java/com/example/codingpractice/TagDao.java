@@ -0,0 +1,42 @@
+package com.example.codingpractice;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Delete;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+public interface TagDao {
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)//returns -1 if a tag with that name already exists
+    long insert(Tag tag);
+
+    @Delete
+    void delete(Tag tag);
+
+    @Query("SELECT * FROM tag_table ORDER BY name")
+    LiveData<List<Tag>> getAllTags();
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)//attaching the same tag twice does nothing
+    void addTagToNote(NoteTagCrossRef crossRef);
+
+    @Delete
+    void removeTagFromNote(NoteTagCrossRef crossRef);
+
+    @Query("SELECT tag_table.* FROM tag_table INNER JOIN note_tag_table " +
+            "ON tag_table.id = note_tag_table.tagId WHERE note_tag_table.noteId = :noteId " +
+            "ORDER BY tag_table.name")
+    LiveData<List<Tag>> getTagsForNote(int noteId);
+
+    //(these two are only used to (re)build the in-memory TagIndex, so they are plain
+    // synchronous queries and must be called from a background thread)
+    @Query("SELECT * FROM note_tag_table")
+    List<NoteTagCrossRef> getAllNoteTags();
+
+    @Query("SELECT id FROM note_table")
+    int[] getAllNoteIds();
+}
@@ -0,0 +1,146 @@
+package com.example.codingpractice;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index from tag id to the ids of the notes carrying that tag, so tag filters
+ * (all of / any of / none of) are answered with bitmap operations instead of SQL joins.
+ * It is built lazily from the database on the first filter and then kept up to date by
+ * the repository on every write. Like the DAO, it must only be used off the main thread.
+ * The repository builds it on the database's writer thread and tells the index about a
+ * write on that thread after the write is committed, so no write is missed or applied
+ * to data that already contains it.
+ */
+public class TagIndex {
+    private final Map<Integer, RoaringBitmap> notesByTag = new HashMap<>();
+    private RoaringBitmap allNotes = new RoaringBitmap();//needed to answer "none of" filters
+    private boolean built;
+
+    public synchronized boolean isBuilt() {
+        return built;
+    }
+
+    public synchronized void rebuild(int[] noteIds, List<NoteTagCrossRef> noteTags) {
+        clear();
+        for (int noteId : noteIds) {
+            allNotes.add(noteId);
+        }
+        for (NoteTagCrossRef noteTag : noteTags) {
+            bitmapFor(noteTag.getTagId()).add(noteTag.getNoteId());
+        }
+        built = true;
+    }
+
+    //(the write methods below do nothing until the index is built, the rebuild will pick
+    // those changes up from the database anyway)
+    public synchronized void noteAdded(int noteId) {
+        if (built) {
+            allNotes.add(noteId);
+        }
+    }
+
+    public synchronized void noteRemoved(int noteId) {
+        if (!built) {
+            return;
+        }
+        allNotes.remove(noteId);
+        for (RoaringBitmap notes : notesByTag.values()) {
+            notes.remove(noteId);
+        }
+    }
+
+    public synchronized void allNotesRemoved() {
+        if (built) {
+            clear();
+        }
+    }
+
+    public synchronized void tagAdded(int noteId, int tagId) {
+        if (built) {
+            bitmapFor(tagId).add(noteId);
+        }
+    }
+
+    public synchronized void tagRemoved(int noteId, int tagId) {
+        if (!built) {
+            return;
+        }
+        RoaringBitmap notes = notesByTag.get(tagId);
+        if (notes != null) {
+            notes.remove(noteId);
+        }
+    }
+
+    public synchronized void tagDeleted(int tagId) {
+        if (built) {
+            notesByTag.remove(tagId);
+        }
+    }
+
+    //returns the ids of the matching notes in ascending order
+    public synchronized int[] filter(Filter filter) {
+        if (!built) {
+            throw new IllegalStateException("TagIndex has to be rebuilt before filtering");
+        }
+        RoaringBitmap result = null;
+        for (int tagId : filter.allOf) {
+            RoaringBitmap notes = notesByTag.get(tagId);
+            if (notes == null) {
+                return new int[0];//no note has this tag, so no note can have all of them
+            }
+            result = result == null ? notes : RoaringBitmap.and(result, notes);
+        }
+        if (!filter.anyOf.isEmpty()) {
+            RoaringBitmap any = new RoaringBitmap();
+            for (int tagId : filter.anyOf) {
+                RoaringBitmap notes = notesByTag.get(tagId);
+                if (notes != null) {
+                    any = RoaringBitmap.or(any, notes);
+                }
+            }
+            result = result == null ? any : RoaringBitmap.and(result, any);
+        }
+        if (result == null) {
+            result = allNotes;//only "none of" tags were given
+        }
+        for (int tagId : filter.noneOf) {
+            RoaringBitmap notes = notesByTag.get(tagId);
+            if (notes != null) {
+                result = RoaringBitmap.andNot(result, notes);
+            }
+        }
+        return result.toArray();
+    }
+
+    private RoaringBitmap bitmapFor(int tagId) {
+        RoaringBitmap notes = notesByTag.get(tagId);
+        if (notes == null) {
+            notes = new RoaringBitmap();
+            notesByTag.put(tagId, notes);
+        }
+        return notes;
+    }
+
+    private void clear() {
+        notesByTag.clear();
+        allNotes = new RoaringBitmap();
+    }
+
+    //a note matches if it has every "all of" tag, at least one "any of" tag (when any are
+    //given) and none of the "none of" tags
+    public static class Filter {
+        private final Collection<Integer> allOf;
+        private final Collection<Integer> anyOf;
+        private final Collection<Integer> noneOf;
+
+        public Filter(Collection<Integer> allOf, Collection<Integer> anyOf, Collection<Integer> noneOf) {
+            this.allOf = allOf != null ? allOf : Collections.<Integer>emptyList();
+            this.anyOf = anyOf != null ? anyOf : Collections.<Integer>emptyList();
+            this.noneOf = noneOf != null ? noneOf : Collections.<Integer>emptyList();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.codingpractice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Delta between two texts, used to store note revisions compactly.
+ * The texts are compared as tokens: a short line is one token, a long line (a paragraph,
+ * which is how most notes are typed) is split into words, so a one word edit doesn't cost
+ * the whole paragraph. Every token keeps the spaces and line break after it, so joining
+ * the tokens gives back the text exactly.
+ * A delta is a list of operations, one per line: "=n" copies the next n tokens of the old
+ * text, "-n" skips them and "+token" inserts a token (with backslashes and line breaks
+ * escaped as \\ and \n).
+ */
+public final class TextDelta {
+    //lines up to this length are compared as a whole, longer ones word by word
+    private static final int WORD_LEVEL_LINE_LENGTH = 80;
+    //(Myers' diff keeps one array per edit step, above this many ints we give up looking for
+    // the shortest edit and just replace the changed middle part)
+    private static final int MAX_TRACE_SIZE = 1 << 20;
+
+    private TextDelta() {
+    }
+
+    public static String diff(String oldText, String newText) {
+        String[] a = tokenize(oldText);
+        String[] b = tokenize(newText);
+
+        //tokens that didn't change at the start and the end are the common case, so they
+        //are skipped before running the actual diff
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix].equals(b[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+                && a[a.length - 1 - suffix].equals(b[b.length - 1 - suffix])) {
+            suffix++;
+        }
+
+        Builder builder = new Builder();
+        builder.copy(prefix);
+        myers(a, prefix, a.length - suffix, b, prefix, b.length - suffix, builder);
+        builder.copy(suffix);
+        return builder.toString();
+    }
+
+    public static String patch(String oldText, String delta) {
+        if (delta.isEmpty()) {
+            return oldText;
+        }
+        String[] a = tokenize(oldText);
+        StringBuilder result = new StringBuilder(oldText.length());
+        int position = 0;
+        for (String operation : delta.split("\n", -1)) {
+            char type = operation.charAt(0);
+            if (type == '+') {
+                unescape(operation, 1, result);
+            } else {
+                int count = Integer.parseInt(operation.substring(1));
+                if (type == '=') {
+                    for (int i = 0; i < count; i++) {
+                        result.append(a[position + i]);
+                    }
+                } else if (type != '-') {
+                    throw new IllegalArgumentException("Unknown delta operation: " + operation);
+                }
+                position += count;
+            }
+        }
+        return result.toString();
+    }
+
+    //splits the text into lines, and long lines further into words, see the class comment
+    private static String[] tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int newline = text.indexOf('\n', lineStart);
+            int lineEnd = newline < 0 ? text.length() : newline + 1;
+            if (lineEnd - lineStart <= WORD_LEVEL_LINE_LENGTH) {
+                tokens.add(text.substring(lineStart, lineEnd));
+            } else {
+                //a word is everything up to the end of the whitespace that follows it
+                int tokenStart = lineStart;
+                int i = lineStart;
+                while (i < lineEnd) {
+                    while (i < lineEnd && !Character.isWhitespace(text.charAt(i))) {
+                        i++;
+                    }
+                    while (i < lineEnd && Character.isWhitespace(text.charAt(i))) {
+                        i++;
+                    }
+                    tokens.add(text.substring(tokenStart, i));
+                    tokenStart = i;
+                }
+            }
+            lineStart = lineEnd;
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static void escape(String token, StringBuilder out) {
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '\\') {
+                out.append("\\\\");
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    private static void unescape(String operation, int start, StringBuilder out) {
+        for (int i = start; i < operation.length(); i++) {
+            char c = operation.charAt(i);
+            if (c == '\\' && i + 1 < operation.length()) {
+                i++;
+                out.append(operation.charAt(i) == 'n' ? '\n' : operation.charAt(i));
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    //Myers' O(ND) diff of a[aStart, aEnd) against b[bStart, bEnd)
+    private static void myers(String[] a, int aStart, int aEnd, String[] b, int bStart, int bEnd,
+                              Builder builder) {
+        int n = aEnd - aStart;
+        int m = bEnd - bStart;
+        if (n == 0 || m == 0) {
+            builder.replace(n, b, bStart, bEnd);
+            return;
+        }
+        int max = n + m;
+        int offset = max + 1;
+        int[] v = new int[2 * max + 2];
+        List<int[]> trace = new ArrayList<>();
+
+        int finalD = -1;
+        for (int d = 0; d <= max && finalD < 0; d++) {
+            if ((long) (d + 1) * v.length > MAX_TRACE_SIZE) {
+                builder.replace(n, b, bStart, bEnd);
+                return;
+            }
+            trace.add(v.clone());
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+                    x = v[offset + k + 1];
+                } else {
+                    x = v[offset + k - 1] + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && a[aStart + x].equals(b[bStart + y])) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    finalD = d;
+                    break;
+                }
+            }
+        }
+
+        //walk back through the trace to recover the edits, they come out in reverse order
+        List<Object> edits = new ArrayList<>();//Integer index of a deleted token or String of an inserted one
+        int x = n, y = m;
+        for (int d = finalD; d > 0; d--) {
+            int[] previous = trace.get(d);
+            int k = x - y;
+            int previousK = (k == -d || (k != d && previous[offset + k - 1] < previous[offset + k + 1]))
+                    ? k + 1 : k - 1;
+            int previousX = previous[offset + previousK];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                edits.add(Boolean.TRUE);//unchanged token
+                x--;
+                y--;
+            }
+            if (x == previousX) {
+                edits.add(b[bStart + y - 1]);
+            } else {
+                edits.add(x - 1);
+            }
+            x = previousX;
+            y = previousY;
+        }
+        for (; x > 0; x--) {
+            edits.add(Boolean.TRUE);
+        }
+        Collections.reverse(edits);
+
+        for (Object edit : edits) {
+            if (edit instanceof String) {
+                builder.insert((String) edit);
+            } else if (edit instanceof Integer) {
+                builder.delete(1);
+            } else {
+                builder.copy(1);
+            }
+        }
+    }
+
+    //merges runs of the same operation so "=1" "=1" "=1" is written as "=3"
+    private static class Builder {
+        private final StringBuilder delta = new StringBuilder();
+        private char pendingType;
+        private int pendingCount;
+
+        void copy(int count) {
+            add('=', count);
+        }
+
+        void delete(int count) {
+            add('-', count);
+        }
+
+        void insert(String token) {
+            flush();
+            separate();
+            delta.append('+');
+            escape(token, delta);
+        }
+
+        void replace(int deleted, String[] b, int bStart, int bEnd) {
+            delete(deleted);
+            for (int i = bStart; i < bEnd; i++) {
+                insert(b[i]);
+            }
+        }
+
+        private void add(char type, int count) {
+            if (count == 0) {
+                return;
+            }
+            if (pendingType != type) {
+                flush();
+                pendingType = type;
+            }
+            pendingCount += count;
+        }
+
+        private void flush() {
+            if (pendingCount > 0) {
+                separate();
+                delta.append(pendingType).append(pendingCount);
+            }
+            pendingType = 0;
+            pendingCount = 0;
+        }
+
+        private void separate() {
+            if (delta.length() > 0) {
+                delta.append('\n');
+            }
+        }
+
+        @Override
+        public String toString() {
+            flush();
+            return delta.toString();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.codingpractice;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Soak test of the database threading policy: a note_table in WAL mode on a JVM SQLite,
+ * written only through DatabaseExecutors.write() and read through DatabaseExecutors.read()
+ * with one connection per reader thread, like Android's WAL connection pool.
+ * Writers keep updating notes and now and then run a long bulk import + delete, while
+ * readers load the list and single notes. At the end every update has to be in the table
+ * and the p99 read latency (queueing included) has to stay low.
+ * It only runs when asked for, e.g. ./gradlew test -Dsoak.seconds=10 (or 300 for a longer
+ * run), so the timing assertion doesn't make every build slow and flaky.
+ */
+public class DatabaseSoakTest {
+    private static final int NOTE_COUNT = 200;
+    private static final int WRITER_COUNT = 4;
+    private static final int BULK_IMPORT_SIZE = 20_000;
+    private static final long MAX_P99_READ_MILLIS = 50;
+
+    private final ThreadLocal<Connection> readerConnection = new ThreadLocal<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private File databaseFile;
+    private Connection writerConnection;
+
+    @Test
+    public void concurrentReadersAndWriters() throws Exception {
+        assumeTrue("soak test runs only with -Dsoak.seconds", System.getProperty("soak.seconds") != null);
+        long seconds = Long.getLong("soak.seconds");
+        databaseFile = File.createTempFile("note_database", ".db");
+        try {
+            createDatabase();
+            run(seconds * 1000);
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            new File(databaseFile.getPath() + "-wal").delete();
+            new File(databaseFile.getPath() + "-shm").delete();
+            databaseFile.delete();
+        }
+    }
+
+    private void run(long durationMillis) throws Exception {
+        AtomicLongArray expectedUpdates = new AtomicLongArray(NOTE_COUNT + 1);
+        ConcurrentLinkedQueue<Long> readNanos = new ConcurrentLinkedQueue<>();
+        AtomicLong bulkImports = new AtomicLong();
+        //(a client that dies would otherwise just stop adding samples and the test could still pass)
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        long end = System.currentTimeMillis() + durationMillis;
+
+        List<Thread> clients = new ArrayList<>();
+        for (int w = 0; w < WRITER_COUNT; w++) {
+            Random random = new Random(w);
+            clients.add(new Thread(() -> {
+                List<CompletableFuture<Void>> pending = new ArrayList<>();
+                while (System.currentTimeMillis() < end) {
+                    if (random.nextInt(2_000) == 0) {
+                        pending.add(CompletableFuture.runAsync(this::bulkImportAndDelete, DatabaseExecutors.write()));
+                        bulkImports.incrementAndGet();
+                    } else {
+                        int id = 1 + random.nextInt(NOTE_COUNT);
+                        pending.add(CompletableFuture.runAsync(() -> appendToNote(id), DatabaseExecutors.write()));
+                        expectedUpdates.incrementAndGet(id);
+                    }
+                    if (pending.size() == 50) {//don't let the write queue grow without bound
+                        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+                        pending.clear();
+                    }
+                }
+                CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+            }));
+        }
+        for (int r = 0; r < DatabaseExecutors.READER_COUNT; r++) {
+            Random random = new Random(100 + r);
+            clients.add(new Thread(() -> {
+                while (System.currentTimeMillis() < end) {
+                    long start = System.nanoTime();
+                    if (random.nextBoolean()) {
+                        CompletableFuture.runAsync(this::loadAllNotes, DatabaseExecutors.read()).join();
+                    } else {
+                        int id = 1 + random.nextInt(NOTE_COUNT);
+                        CompletableFuture.runAsync(() -> loadNote(id), DatabaseExecutors.read()).join();
+                    }
+                    readNanos.add(System.nanoTime() - start);
+                }
+            }));
+        }
+        for (Thread client : clients) {
+            client.setUncaughtExceptionHandler((thread, e) -> failures.add(e));
+            client.start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError(failures.size() + " client threads failed", failures.peek());
+            for (Throwable failure : failures) {
+                if (failure != failures.peek()) {
+                    error.addSuppressed(failure);
+                }
+            }
+            throw error;
+        }
+
+        //no lost updates: every append has to be there, and the bulk imports left nothing behind
+        Connection connection = readerConnection();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT id, length(description) FROM note_table")) {
+            int rows = 0;
+            while (result.next()) {
+                int id = result.getInt(1);
+                assertEquals("updates of note " + id, expectedUpdates.get(id), result.getLong(2));
+                rows++;
+            }
+            assertEquals(NOTE_COUNT, rows);
+        }
+
+        long[] latencies = new long[readNanos.size()];
+        int i = 0;
+        for (long nanos : readNanos) {
+            latencies[i++] = nanos;
+        }
+        Arrays.sort(latencies);
+        double p50 = latencies[latencies.length / 2] / 1e6;
+        double p99 = latencies[(int) (latencies.length * 0.99)] / 1e6;
+        double max = latencies[latencies.length - 1] / 1e6;
+        long updates = 0;
+        for (int id = 1; id <= NOTE_COUNT; id++) {
+            updates += expectedUpdates.get(id);
+        }
+        System.out.printf("DatabaseSoakTest: %d s, %d updates, %d bulk imports of %d notes, %d reads, "
+                        + "read latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                durationMillis / 1000, updates, bulkImports.get(), BULK_IMPORT_SIZE, latencies.length,
+                p50, p99, max);
+        assertTrue("p99 read latency was " + p99 + " ms", p99 < MAX_P99_READ_MILLIS);
+    }
+
+    private void createDatabase() throws SQLException {
+        writerConnection = open();
+        try (Statement statement = writerConnection.createStatement()) {
+            statement.execute("PRAGMA journal_mode = WAL");
+            statement.execute("CREATE TABLE note_table (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "title TEXT, description TEXT, priority INTEGER NOT NULL)");
+        }
+        writerConnection.setAutoCommit(false);
+        try (PreparedStatement insert = writerConnection.prepareStatement(
+                "INSERT INTO note_table (title, description, priority) VALUES (?, '', ?)")) {
+            for (int i = 1; i <= NOTE_COUNT; i++) {
+                insert.setString(1, "Title " + i);
+                insert.setInt(2, 1 + i % 10);
+                insert.executeUpdate();
+            }
+        }
+        writerConnection.commit();
+    }
+
+    private Connection open() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getPath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA synchronous = NORMAL");//what Android uses for WAL databases
+            statement.execute("PRAGMA busy_timeout = 5000");
+        }
+        synchronized (connections) {
+            connections.add(connection);
+        }
+        return connection;
+    }
+
+    //every reader thread gets its own connection, like the connections in Android's WAL pool
+    private Connection readerConnection() {
+        try {
+            Connection connection = readerConnection.get();
+            if (connection == null) {
+                connection = open();
+                readerConnection.set(connection);
+            }
+            return connection;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //the update is a read-modify-write, if two writes could interleave one of them would be lost
+    private void appendToNote(int id) {
+        try (PreparedStatement select = writerConnection.prepareStatement(
+                "SELECT description FROM note_table WHERE id = ?");
+             PreparedStatement update = writerConnection.prepareStatement(
+                     "UPDATE note_table SET description = ? WHERE id = ?")) {
+            select.setInt(1, id);
+            String description;
+            try (ResultSet result = select.executeQuery()) {
+                result.next();
+                description = result.getString(1);
+            }
+            update.setString(1, description + "x");
+            update.setInt(2, id);
+            update.executeUpdate();
+            writerConnection.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //a long write like importing a backup and then deleting it again
+    private void bulkImportAndDelete() {
+        try (PreparedStatement insert = writerConnection.prepareStatement(
+                "INSERT INTO note_table (title, description, priority) VALUES (?, ?, 5)");
+             PreparedStatement delete = writerConnection.prepareStatement(
+                     "DELETE FROM note_table WHERE id > ?")) {
+            for (int i = 0; i < BULK_IMPORT_SIZE; i++) {
+                insert.setString(1, "Imported " + i);
+                insert.setString(2, "Imported description " + i);
+                insert.executeUpdate();
+            }
+            writerConnection.commit();
+            delete.setInt(1, NOTE_COUNT);
+            delete.executeUpdate();
+            writerConnection.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void loadAllNotes() {
+        try (Statement statement = readerConnection().createStatement();
+             ResultSet result = statement.executeQuery("SELECT * FROM note_table ORDER BY priority")) {
+            while (result.next()) {
+                result.getString("description");
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void loadNote(int id) {
+        try (PreparedStatement select = readerConnection().prepareStatement(
+                "SELECT * FROM note_table WHERE id = ?")) {
+            select.setInt(1, id);
+            try (ResultSet result = select.executeQuery()) {
+                assertTrue(result.next());
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
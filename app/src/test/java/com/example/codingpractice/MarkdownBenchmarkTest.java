@@ -0,0 +1,127 @@
+package com.example.codingpractice;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures parsing of 100KB markdown notes, in full and incrementally while typing,
+ * and checks that incremental parsing always ends up with the same result as a full parse.
+ */
+public class MarkdownBenchmarkTest {
+    private static final int DOCUMENT_SIZE = 100 * 1024;
+    private static final int FULL_PARSE_RUNS = 50;
+    private static final int KEYSTROKES = 5_000;
+
+    @Test
+    public void parseOf100KbDocument() {
+        String source = document(new Random(1));
+
+        for (int i = 0; i < FULL_PARSE_RUNS; i++) {//warm up the JIT
+            MarkdownDocument.parse(source).toDisplay();
+        }
+        long parseNanos = 0;
+        long displayNanos = 0;
+        for (int i = 0; i < FULL_PARSE_RUNS; i++) {
+            long start = System.nanoTime();
+            MarkdownDocument document = MarkdownDocument.parse(source);
+            long parsed = System.nanoTime();
+            document.toDisplay();
+            parseNanos += parsed - start;
+            displayNanos += System.nanoTime() - parsed;
+        }
+        System.out.printf("Markdown: full parse of %d chars %.2f ms, display text %.2f ms%n",
+                source.length(), parseNanos / 1e6 / FULL_PARSE_RUNS, displayNanos / 1e6 / FULL_PARSE_RUNS);
+
+        //typing one character in the middle of the document, like the editor does
+        MarkdownDocument document = MarkdownDocument.parse(source);
+        StringBuilder text = new StringBuilder(source);
+        int position = text.length() / 2;
+        while (text.charAt(position - 1) != '\n') {
+            position++;
+        }
+        long editNanos = 0;
+        int reparsedBlocks = 0;
+        for (int i = 0; i < KEYSTROKES; i++) {
+            text.insert(position, i % 20 == 19 ? ' ' : 'a');
+            String newSource = text.toString();
+            long start = System.nanoTime();
+            MarkdownDocument.Change change = document.edit(position, 0, 1, newSource);
+            editNanos += System.nanoTime() - start;
+            reparsedBlocks += change.addedBlockCount;
+            position++;
+        }
+        System.out.printf("Markdown: incremental parse per keystroke %.1f us, %.1f of %d blocks parsed again%n",
+                editNanos / 1e3 / KEYSTROKES, (double) reparsedBlocks / KEYSTROKES, document.getBlockCount());
+        assertDisplayEquals(MarkdownDocument.parse(text.toString()), document);
+    }
+
+    @Test
+    public void incrementalParseMatchesFullParse() {
+        Random random = new Random(2);
+        StringBuilder text = new StringBuilder(document(random).substring(0, 8_000));
+        MarkdownDocument document = MarkdownDocument.parse(text.toString());
+        String[] insertions = {"a", " ", "\n", "\n\n", "*", "**", "`", "```", "```\n", "# ", "- ", "> ", "_", "~~"};
+        for (int i = 0; i < 3_000; i++) {
+            int start = random.nextInt(text.length() + 1);
+            int before = random.nextInt(4) == 0 ? Math.min(random.nextInt(30), text.length() - start) : 0;
+            String inserted = random.nextInt(5) == 0 ? "" : insertions[random.nextInt(insertions.length)];
+            text.replace(start, start + before, inserted);
+            document.edit(start, before, inserted.length(), text.toString());
+            assertDisplayEquals(MarkdownDocument.parse(text.toString()), document);
+        }
+    }
+
+    @Test
+    public void markersAreRemovedFromDisplayText() {
+        MarkdownDocument.Display display = MarkdownDocument.parse(
+                "# Title\n- **bold** and *it*\n\n```\ncode\n```\nsnake_case `x` \\*").toDisplay();
+        assertEquals("Title\nbold and it\n\ncode\nsnake_case x *", display.text);
+        assertArrayEquals(new int[]{
+                MarkdownDocument.HEADING, 0, 5, 1,
+                MarkdownDocument.BULLET, 6, 17, 0,
+                MarkdownDocument.BOLD, 6, 10, 0,
+                MarkdownDocument.ITALIC, 15, 17, 0,
+                MarkdownDocument.CODE_BLOCK, 19, 24, 0,
+                MarkdownDocument.CODE, 35, 36, 0}, display.spans);
+    }
+
+    private static void assertDisplayEquals(MarkdownDocument expected, MarkdownDocument actual) {
+        MarkdownDocument.Display expectedDisplay = expected.toDisplay();
+        MarkdownDocument.Display actualDisplay = actual.toDisplay();
+        assertEquals(expectedDisplay.text, actualDisplay.text);
+        assertArrayEquals(expectedDisplay.spans, actualDisplay.spans);
+        assertEquals(expected.getBlockCount(), actual.getBlockCount());
+    }
+
+    private static String document(Random random) {
+        StringBuilder text = new StringBuilder(DOCUMENT_SIZE + 1024);
+        while (text.length() < DOCUMENT_SIZE) {
+            switch (random.nextInt(6)) {
+                case 0:
+                    text.append("## Section ").append(random.nextInt(1000)).append('\n');
+                    break;
+                case 1:
+                    for (int i = 0; i < 4; i++) {
+                        text.append("- item with **bold** and `code` ").append(random.nextInt(1000)).append('\n');
+                    }
+                    break;
+                case 2:
+                    text.append("```\nint x = ").append(random.nextInt(1000)).append(";\nreturn x * 2;\n```\n");
+                    break;
+                case 3:
+                    text.append("> a quote with *emphasis*\n");
+                    break;
+                default:
+                    for (int i = 0; i < 3; i++) {
+                        text.append("Some text with **bold**, *italic*, ~~struck~~ and snake_case words ")
+                                .append(random.nextInt(1000)).append('\n');
+                    }
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
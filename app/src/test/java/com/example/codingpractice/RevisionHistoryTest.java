@@ -0,0 +1,276 @@
+package com.example.codingpractice;
+
+import androidx.lifecycle.LiveData;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Edits notes hundreds of times through RevisionHistory (backed by an in-memory DAO), checks
+ * that every retained revision is rebuilt exactly and reports how much storage the history takes,
+ * both for notes made of many short lines and for notes typed as a few long paragraphs.
+ */
+public class RevisionHistoryTest {
+    private static final int EDIT_COUNT = 400;
+
+    @Test
+    public void deltaRoundTrip() {
+        Random random = new Random(7);
+        String text = randomText(random, 200);
+        for (int i = 0; i < 500; i++) {
+            String edited = edit(random, text);
+            assertEquals(edited, TextDelta.patch(text, TextDelta.diff(text, edited)));
+            text = edited;
+        }
+        assertEquals("", TextDelta.patch("a\nb", TextDelta.diff("a\nb", "")));
+        assertEquals("a\n\nb\n", TextDelta.patch("", TextDelta.diff("", "a\n\nb\n")));
+
+        //long lines are compared word by word, and tokens may contain characters that the
+        //delta format has to escape
+        text = randomParagraphs(random, 3) + "\\n and a back\\slash";
+        for (int i = 0; i < 500; i++) {
+            String edited = editParagraphs(random, text);
+            assertEquals(edited, TextDelta.patch(text, TextDelta.diff(text, edited)));
+            text = edited;
+        }
+    }
+
+    @Test
+    public void reconstructsEveryRetainedRevision() {
+        Random random = new Random(42);
+        double overhead = recordEdits("short lines", note("Title", randomText(random, 500), 1),//about 20KB
+                text -> edit(random, text));
+        assertTrue(overhead < 0.5);
+    }
+
+    //a one word edit in a paragraph must not store the whole paragraph again
+    @Test
+    public void paragraphNoteStoresWordDeltas() {
+        Random random = new Random(43);
+        double overhead = recordEdits("paragraphs", note("Title", randomParagraphs(random, 8), 1),//about 14KB
+                text -> editParagraphs(random, text));
+        assertTrue(overhead < 0.15);
+    }
+
+    //records EDIT_COUNT edits, checks every retained revision and returns the size of the
+    //history as a fraction of full copies of the retained revisions
+    private static double recordEdits(String kind, Note first, UnaryOperator<String> editor) {
+        FakeNoteRevisionDao dao = new FakeNoteRevisionDao();
+        RevisionHistory history = new RevisionHistory(dao);
+
+        Note stored = first;
+        List<Note> versions = new ArrayList<>();
+        versions.add(stored);
+        long fullCopiesSize = stored.getDescription().length();
+        for (int i = 0; i < EDIT_COUNT; i++) {
+            Note updated = note("Title " + (i % 3), editor.apply(stored.getDescription()), 1 + i % 10);
+            history.record(stored, updated);
+            stored = updated;
+            versions.add(stored);
+            fullCopiesSize += stored.getDescription().length();
+        }
+
+        int latest = versions.size();//revisions are numbered from 1
+        int oldestKept = latest - RevisionHistory.MAX_REVISIONS + 1;
+        assertEquals(RevisionHistory.MAX_REVISIONS, dao.revisions.size());
+        assertNull(history.reconstruct(stored.getId(), oldestKept - 1));
+        for (int revision = oldestKept; revision <= latest; revision++) {
+            Note expected = versions.get(revision - 1);
+            Note actual = history.reconstruct(stored.getId(), revision);
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getPriority(), actual.getPriority());
+        }
+
+        long retainedFullCopiesSize = 0;
+        for (int revision = oldestKept; revision <= latest; revision++) {
+            retainedFullCopiesSize += versions.get(revision - 1).getDescription().length();
+        }
+        long historySize = dao.storedContentSize();
+        System.out.printf("RevisionHistory: %d edits of a %d char note in %s, %d revisions kept in %d chars, "
+                        + "%.1f%% of the %d chars full copies of them would take "
+                        + "(%d chars for all %d versions)%n",
+                EDIT_COUNT, stored.getDescription().length(), kind, dao.revisions.size(), historySize,
+                100.0 * historySize / retainedFullCopiesSize, retainedFullCopiesSize,
+                fullCopiesSize, versions.size());
+        return (double) historySize / retainedFullCopiesSize;
+    }
+
+    @Test
+    public void unchangedSaveDoesNotAddRevision() {
+        FakeNoteRevisionDao dao = new FakeNoteRevisionDao();
+        RevisionHistory history = new RevisionHistory(dao);
+        Note note = note("Title", "Description", 1);
+        history.record(note, note("Title", "Description", 1));
+        assertTrue(dao.revisions.isEmpty());
+
+        history.record(note, note("Title", "Description 2", 1));
+        assertEquals(2, dao.revisions.size());
+        assertEquals("Description", history.reconstruct(note.getId(), 1).getDescription());
+        assertEquals("Description 2", history.reconstruct(note.getId(), 2).getDescription());
+    }
+
+    private static Note note(String title, String description, int priority) {
+        Note note = new Note(title, description, priority);
+        note.setId(1);
+        return note;
+    }
+
+    private static String randomText(Random random, int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                text.append('\n');
+            }
+            text.append(randomLine(random));
+        }
+        return text.toString();
+    }
+
+    private static String randomLine(Random random) {
+        StringBuilder line = new StringBuilder();
+        int words = random.nextInt(12);
+        for (int i = 0; i < words; i++) {
+            line.append("word").append(random.nextInt(1000)).append(' ');
+        }
+        return line.toString();
+    }
+
+    //paragraphs of about 200 words, separated by empty lines like in a multi-line EditText
+    private static String randomParagraphs(Random random, int paragraphs) {
+        StringBuilder text = new StringBuilder();
+        for (int p = 0; p < paragraphs; p++) {
+            if (p > 0) {
+                text.append("\n\n");
+            }
+            int words = 150 + random.nextInt(100);
+            for (int i = 0; i < words; i++) {
+                if (i > 0) {
+                    text.append(' ');
+                }
+                text.append("word").append(random.nextInt(1000));
+            }
+            text.append('.');
+        }
+        return text.toString();
+    }
+
+    //a typical edit in a paragraph changes, adds or removes a word or two
+    private static String editParagraphs(Random random, String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.split(" ", -1)) {
+            words.add(word);
+        }
+        int changes = 1 + random.nextInt(2);
+        for (int i = 0; i < changes; i++) {
+            int position = random.nextInt(words.size());
+            switch (random.nextInt(3)) {
+                case 0:
+                    words.add(position, "new" + random.nextInt(1000));
+                    break;
+                case 1:
+                    if (words.size() > 1) {
+                        words.remove(position);
+                    }
+                    break;
+                default:
+                    words.set(position, "changed" + random.nextInt(1000));
+            }
+        }
+        return String.join(" ", words);
+    }
+
+    //a typical edit touches a few neighbouring lines
+    private static String edit(Random random, String text) {
+        List<String> lines = new ArrayList<>();
+        for (String line : text.split("\n", -1)) {
+            lines.add(line);
+        }
+        int changes = 1 + random.nextInt(3);
+        for (int i = 0; i < changes; i++) {
+            int position = random.nextInt(lines.size());
+            switch (random.nextInt(3)) {
+                case 0:
+                    lines.add(position, randomLine(random));
+                    break;
+                case 1:
+                    if (lines.size() > 1) {
+                        lines.remove(position);
+                    }
+                    break;
+                default:
+                    lines.set(position, randomLine(random));
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    private static class FakeNoteRevisionDao implements NoteRevisionDao {
+        private final TreeMap<Integer, NoteRevision> revisions = new TreeMap<>();//all for one note
+
+        @Override
+        public void insert(NoteRevision revision) {
+            revisions.put(revision.getRevision(), revision);
+        }
+
+        @Override
+        public void update(NoteRevision revision) {
+            revisions.put(revision.getRevision(), revision);
+        }
+
+        @Override
+        public LiveData<List<NoteRevision>> getRevisionsForNote(int noteId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public NoteRevision getLatestRevision(int noteId) {
+            return revisions.isEmpty() ? null : revisions.lastEntry().getValue();
+        }
+
+        @Override
+        public NoteRevision getRevision(int noteId, int revision) {
+            return revisions.get(revision);
+        }
+
+        @Override
+        public NoteRevision getKeyframeAtOrBefore(int noteId, int revision) {
+            for (NoteRevision candidate : revisions.headMap(revision, true).descendingMap().values()) {
+                if (candidate.isKeyframe()) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public List<NoteRevision> getRevisionsBetween(int noteId, int fromRevision, int toRevision) {
+            return new ArrayList<>(revisions.subMap(fromRevision, false, toRevision, true).values());
+        }
+
+        @Override
+        public void deleteRevisionsBefore(int noteId, int revision) {
+            Iterator<Integer> iterator = revisions.headMap(revision, false).keySet().iterator();
+            while (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+
+        long storedContentSize() {
+            long size = 0;
+            for (NoteRevision revision : revisions.values()) {
+                size += revision.getContent().length();
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.codingpractice;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks TagIndex against a brute force BitSet implementation and measures how long
+ * 3-tag intersections take over 200k notes with 500 tags.
+ */
+public class TagIndexBenchmarkTest {
+    private static final int NOTE_COUNT = 200_000;
+    private static final int TAG_COUNT = 500;
+    private static final int TAGS_PER_NOTE = 8;
+    private static final int QUERY_COUNT = 2_000;
+
+    @Test
+    public void threeTagIntersections() {
+        Random random = new Random(42);
+        int[] noteIds = new int[NOTE_COUNT];
+        BitSet[] notesByTag = new BitSet[TAG_COUNT];
+        for (int tagId = 0; tagId < TAG_COUNT; tagId++) {
+            notesByTag[tagId] = new BitSet(NOTE_COUNT);
+        }
+        List<NoteTagCrossRef> noteTags = new ArrayList<>();
+        for (int noteId = 0; noteId < NOTE_COUNT; noteId++) {
+            noteIds[noteId] = noteId;
+            for (int i = 0; i < TAGS_PER_NOTE; i++) {
+                int tagId = skewedTag(random);
+                noteTags.add(new NoteTagCrossRef(noteId, tagId));
+                notesByTag[tagId].set(noteId);
+            }
+        }
+
+        long buildStart = System.nanoTime();
+        TagIndex index = new TagIndex();
+        index.rebuild(noteIds, noteTags);
+        long buildNanos = System.nanoTime() - buildStart;
+
+        int[][] queries = new int[QUERY_COUNT][];
+        for (int q = 0; q < QUERY_COUNT; q++) {
+            queries[q] = new int[]{skewedTag(random), skewedTag(random), skewedTag(random)};
+        }
+
+        //warm up the JIT before measuring, and compare every result with BitSet
+        for (int[] query : queries) {
+            int[] expected = bruteForce(notesByTag, query);
+            assertArrayEquals(expected, index.filter(allOf(query)));
+        }
+
+        long queryStart = System.nanoTime();
+        long matches = 0;
+        for (int[] query : queries) {
+            matches += index.filter(allOf(query)).length;
+        }
+        long queryNanos = System.nanoTime() - queryStart;
+
+        System.out.printf("TagIndex: rebuild of %d notes / %d tags took %.1f ms, "
+                        + "3-tag intersection avg %.1f us (%d matches total)%n",
+                NOTE_COUNT, TAG_COUNT, buildNanos / 1e6,
+                queryNanos / 1e3 / QUERY_COUNT, matches);
+    }
+
+    @Test
+    public void combinedFiltersAndIncrementalUpdates() {
+        TagIndex index = new TagIndex();
+        index.rebuild(new int[]{1, 2, 3, 4}, Arrays.asList(
+                new NoteTagCrossRef(1, 10), new NoteTagCrossRef(1, 20),
+                new NoteTagCrossRef(2, 10), new NoteTagCrossRef(3, 20)));
+
+        assertArrayEquals(new int[]{1}, index.filter(allOf(10, 20)));
+        assertArrayEquals(new int[]{1, 2, 3}, index.filter(
+                new TagIndex.Filter(null, Arrays.asList(10, 20), null)));
+        assertArrayEquals(new int[]{3, 4}, index.filter(
+                new TagIndex.Filter(null, null, Collections.singletonList(10))));
+        assertArrayEquals(new int[]{2}, index.filter(
+                new TagIndex.Filter(Collections.singletonList(10), null, Collections.singletonList(20))));
+
+        index.noteAdded(70_000);//lands in a different container than the other ids
+        index.tagAdded(70_000, 10);
+        index.tagRemoved(1, 20);
+        index.noteRemoved(2);
+        assertArrayEquals(new int[]{1, 70_000}, index.filter(allOf(10)));
+        assertArrayEquals(new int[]{3}, index.filter(allOf(20)));
+
+        index.tagDeleted(10);
+        assertArrayEquals(new int[0], index.filter(allOf(10)));
+
+        index.allNotesRemoved();
+        assertArrayEquals(new int[0], index.filter(new TagIndex.Filter(null, null, null)));
+    }
+
+    //a few tags are very common and most are rare, like real tags, so both dense
+    //and sparse containers get exercised
+    private static int skewedTag(Random random) {
+        double x = random.nextDouble();
+        return (int) (TAG_COUNT * x * x * x);
+    }
+
+    private static TagIndex.Filter allOf(int... tagIds) {
+        List<Integer> tags = new ArrayList<>();
+        for (int tagId : tagIds) {
+            tags.add(tagId);
+        }
+        return new TagIndex.Filter(tags, null, null);
+    }
+
+    private static int[] bruteForce(BitSet[] notesByTag, int[] tagIds) {
+        BitSet result = (BitSet) notesByTag[tagIds[0]].clone();
+        for (int i = 1; i < tagIds.length; i++) {
+            result.and(notesByTag[tagIds[i]]);
+        }
+        return result.stream().toArray();
+    }
+}